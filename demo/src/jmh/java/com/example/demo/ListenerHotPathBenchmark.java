@@ -0,0 +1,234 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jms.core.JmsTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+
+/**
+ * Listener hot path benchmarks against in-memory {@link FakeTextMessage} and
+ * {@link FakeBytesMessage} messages.
+ * Run with the GC profiler to get allocation rates:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="-prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerHotPathBenchmark {
+
+    private static final String QUEUE = "bench-queue";
+
+    @Param({"1024"})
+    int bodySize;
+
+    private FakeTextMessage message;
+    private FakeBytesMessage bytesMessage;
+    private FakeBytesMessage jsonMessage;
+    private ObjectMapper objectMapper;
+    private PayloadDecoder payloadDecoder;
+    private PayloadDecoder payloadDecoderNoReuse;
+    private PayloadBufferPool payloadBufferPool;
+    private OpenTelemetrySdk openTelemetry;
+    private TextMapPropagator propagator;
+    private Tracer tracer;
+    private ItemListener itemListener;
+
+    @Setup
+    public void setUp() throws IOException {
+        message = new FakeTextMessage(QUEUE, "x".repeat(bodySize));
+        message.setStringProperty("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        message.setStringProperty("tracestate", "vendor=value");
+        message.setStringProperty("JMSXGroupID", "item-42");
+        for (int i = 0; i < 8; i++) {
+            message.setStringProperty("app.property." + i, "value-" + i);
+        }
+        bytesMessage = new FakeBytesMessage(QUEUE, "x".repeat(bodySize).getBytes(StandardCharsets.UTF_8));
+        bytesMessage.setStringProperty("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        payloadBufferPool = new PayloadBufferPool(65536, 64);
+
+        // Item fields plus undeclared fields padding the body to roughly bodySize bytes
+        StringBuilder json = new StringBuilder("{\"itemId\":\"item-42\",\"name\":\"widget\",\"quantity\":3,\"price\":9.99");
+        for (int i = 0; json.length() < bodySize - 40; i++) {
+            json.append(",\"extra").append(i).append("\":{\"note\":\"undeclared field ").append(i).append("\"}");
+        }
+        jsonMessage = new FakeBytesMessage(QUEUE, json.append('}').toString().getBytes(StandardCharsets.UTF_8));
+        objectMapper = new ObjectMapper();
+        payloadDecoder = new PayloadDecoder(ItemPayload.class.getName(), true, objectMapper);
+        payloadDecoderNoReuse = new PayloadDecoder(ItemPayload.class.getName(), false, objectMapper);
+
+        // No span processor: spans are built and ended but not exported
+        openTelemetry = OpenTelemetrySdk.builder()
+            .setTracerProvider(SdkTracerProvider.builder().build())
+            .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+            .build();
+        propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        tracer = openTelemetry.getTracer("poc.solace.jms");
+        itemListener = newItemListener();
+    }
+
+    @TearDown
+    public void tearDown() {
+        openTelemetry.close();
+    }
+
+    private ItemListener newItemListener() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InFlightTracker inFlightTracker = new InFlightTracker(registry);
+        DeferredAcknowledger acknowledger = new DeferredAcknowledger(false, 0, new ListenerMetrics(registry), registry);
+        // Lane dispatcher and pipeline are not started, so they stay disabled
+        return new ItemListener(QUEUE, 0, openTelemetry,
+            new OrderedLaneDispatcher(acknowledger, inFlightTracker),
+            new TraceContextSourceHolder("jms-properties"),
+            new MessageLoggingPolicy(0.0, 256, "*"),
+            new TraceSamplingPolicy("parent-based", 1.0, 100),
+            new ListenerMetrics(registry),
+            new IdempotencyFilter(false, "", 1, 1, "", registry),
+            payloadBufferPool,
+            new PayloadDecoder("", true, objectMapper),
+            new MessagePipeline(acknowledger, registry),
+            new RetryScheduler(false, 1, 0, 1.0, 0, 0, 1, "", new JmsTemplate(), registry),
+            inFlightTracker,
+            new MessageJournal(false, "", 1, "", OpenTelemetry.noop(), registry),
+            new StaleMessagePolicy(false, 0, true, "drop", "", 1, 1, 0, false, false, new JmsTemplate(), inFlightTracker, registry),
+            new ProcessingResultCache(false, 1, 1, "", registry));
+    }
+
+    /** Pre-0.2.5 extraction: carrier HashMap and anonymous getter per message. */
+    @Benchmark
+    public Context extractFromJmsPropertiesViaMap() throws Exception {
+        Map<String, String> carrier = new HashMap<>();
+        carrier.put("traceparent", message.getStringProperty("traceparent"));
+        String tracestate = message.getStringProperty("tracestate");
+        if (tracestate != null) {
+            carrier.put("tracestate", tracestate);
+        }
+        return propagator.extract(Context.current(), carrier, new TextMapGetter<Map<String, String>>() {
+            @Override
+            public Iterable<String> keys(Map<String, String> c) {
+                return c.keySet();
+            }
+
+            @Override
+            public String get(Map<String, String> c, String key) {
+                return c.get(key);
+            }
+        });
+    }
+
+    @Benchmark
+    public Context extractFromJmsProperties() {
+        return TraceContextSource.JMS_PROPERTIES.extract(propagator, message);
+    }
+
+    @Benchmark
+    public Context extractFromHeaders() {
+        return TraceContextSource.HEADERS.extract(propagator, message);
+    }
+
+    @Benchmark
+    public Map<String, Object> enumerateProperties() throws Exception {
+        return MessageEnvelope.of(message, Context.root()).properties();
+    }
+
+    @Benchmark
+    public Span buildSpans() {
+        Context parent = TraceContextSource.JMS_PROPERTIES.extract(propagator, message);
+        Span span = tracer.spanBuilder("message-processing")
+            .setSpanKind(SpanKind.CONSUMER)
+            .setAttribute("messaging.system", "solace")
+            .setAttribute("messaging.destination.name", QUEUE)
+            .setAttribute("component", "ItemListener2")
+            .setAttribute("operation", "onMessage")
+            .setAttribute("trace.context.source", "jms-properties")
+            .setParent(parent)
+            .startSpan();
+        span.end();
+        return span;
+    }
+
+    /** Baseline: a new array per message. */
+    @Benchmark
+    public int readBytesPayloadUnpooled() throws Exception {
+        return MessageEnvelope.of(bytesMessage, Context.root()).payload().remaining();
+    }
+
+    @Benchmark
+    public int readBytesPayload() throws Exception {
+        MessageEnvelope envelope = MessageEnvelope.of(bytesMessage, Context.root(), payloadBufferPool);
+        int length = envelope.payload().remaining();
+        envelope.release();
+        return length;
+    }
+
+    /** Baseline: full tree model of the body. */
+    @Benchmark
+    public JsonNode decodeTree() throws Exception {
+        MessageEnvelope envelope = MessageEnvelope.of(jsonMessage, Context.root(), payloadBufferPool);
+        JsonNode tree = objectMapper.readTree(new ByteBufferBackedInputStream(envelope.payload()));
+        envelope.release();
+        return tree;
+    }
+
+    @Benchmark
+    public Object decodeStreaming() throws Exception {
+        MessageEnvelope envelope = MessageEnvelope.of(jsonMessage, Context.root(), payloadBufferPool);
+        Object payload = payloadDecoderNoReuse.decode(envelope);
+        envelope.release();
+        return payload;
+    }
+
+    @Benchmark
+    public Object decodeStreamingReused() throws Exception {
+        MessageEnvelope envelope = MessageEnvelope.of(jsonMessage, Context.root(), payloadBufferPool);
+        Object payload = payloadDecoder.decode(envelope);
+        envelope.release();
+        return payload;
+    }
+
+    @Benchmark
+    public void onMessage() throws Exception {
+        itemListener.onMessage(message);
+    }
+
+    @Benchmark
+    public void onBytesMessage() throws Exception {
+        itemListener.onMessage(bytesMessage);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.demo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Grows or shrinks the consumers of the {@code itemListener} container between configured
+ * bounds (AIMD), based on the mean processing time and end-to-end message age observed
+ * since the previous tick on that container ({@code container=itemListener} series):
+ * <ul>
+ *   <li>processing slower than {@code target-processing-ms}: the downstream is saturating,
+ *       cut consumers multiplicatively</li>
+ *   <li>message age above {@code target-age-ms}: backlog is building, add consumers</li>
+ *   <li>message age below half the target: drain one consumer</li>
+ * </ul>
+ */
+@Component
+public class AdaptiveConcurrencyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+
+    private static final String CONTAINER_ID = ListenerMetrics.ITEM_LISTENER;
+
+    private final JmsListenerEndpointRegistry registry;
+    private final Timer processingTimer;
+    private final Timer ageTimer;
+
+    @Value("${app.listener.adaptive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.listener.adaptive.min-consumers:1}")
+    private int minConsumers;
+
+    @Value("${app.listener.adaptive.max-consumers:16}")
+    private int maxConsumers;
+
+    @Value("${app.listener.adaptive.target-processing-ms:500}")
+    private double targetProcessingMs;
+
+    @Value("${app.listener.adaptive.target-age-ms:1000}")
+    private double targetAgeMs;
+
+    @Value("${app.listener.adaptive.increase-step:1}")
+    private int increaseStep;
+
+    @Value("${app.listener.adaptive.decrease-factor:0.75}")
+    private double decreaseFactor;
+
+    // Pipeline mode and ordered lanes run a single consumer on purpose
+    @Value("${app.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${app.dispatch.lanes:0}")
+    private int laneCount;
+
+    private volatile int targetConsumers;
+    private WindowMean processingWindow;
+    private WindowMean ageWindow;
+
+    public AdaptiveConcurrencyController(JmsListenerEndpointRegistry registry, ListenerMetrics listenerMetrics,
+                                         MeterRegistry meterRegistry) {
+        this.registry = registry;
+        // Only the itemListener container's own messages: other containers, retries, deferred stale
+        // messages and replays record into their own series
+        ListenerMetrics.Series series = listenerMetrics.series(ListenerMetrics.ITEM_LISTENER);
+        this.processingTimer = series.stageTimer(ListenerMetrics.Stage.PROCESS);
+        this.ageTimer = series.messageAgeTimer();
+        Gauge.builder("listener.consumers.target", this, controller -> controller.targetConsumers)
+            .description("Consumer count set by the adaptive concurrency controller")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.listener.adaptive.interval-ms:5000}")
+    public void adjust() {
+        if (!enabled || pipelineEnabled || laneCount > 0) {
+            return;
+        }
+        MessageListenerContainer container = registry.getListenerContainer(CONTAINER_ID);
+        if (!(container instanceof DefaultMessageListenerContainer listenerContainer) || !container.isRunning()) {
+            return;
+        }
+        if (processingWindow == null) {
+            processingWindow = new WindowMean(processingTimer);
+            ageWindow = new WindowMean(ageTimer);
+            targetConsumers = clamp(listenerContainer.getConcurrentConsumers());
+            apply(listenerContainer, targetConsumers);
+            return;
+        }
+
+        double processingMs = processingWindow.next();
+        double ageMs = ageWindow.next();
+        if (Double.isNaN(processingMs)) {
+            // No messages since the last tick: nothing to learn from
+            return;
+        }
+
+        int current = targetConsumers;
+        int next = current;
+        if (processingMs > targetProcessingMs) {
+            next = clamp((int) Math.floor(current * decreaseFactor));
+        } else if (ageMs > targetAgeMs) {
+            next = clamp(current + increaseStep);
+        } else if (ageMs < targetAgeMs / 2) {
+            next = clamp(current - 1);
+        }
+
+        if (next != current) {
+            logger.info("Adaptive concurrency: consumers {} -> {} (processing mean {}ms, age mean {}ms)",
+                current, next, String.format("%.1f", processingMs), String.format("%.1f", ageMs));
+            targetConsumers = next;
+            apply(listenerContainer, next);
+        }
+    }
+
+    private int clamp(int consumers) {
+        return Math.max(minConsumers, Math.min(maxConsumers, consumers));
+    }
+
+    private static void apply(DefaultMessageListenerContainer container, int consumers) {
+        // Raises max when needed; surplus consumers are released once their current task ends
+        container.setConcurrentConsumers(consumers);
+        container.setMaxConcurrentConsumers(consumers);
+    }
+
+    /**
+     * Mean of a timer over the interval since the previous call.
+     */
+    private static final class WindowMean {
+
+        private final Timer timer;
+        private long lastCount;
+        private double lastTotalMs;
+
+        WindowMean(Timer timer) {
+            this.timer = timer;
+            this.lastCount = timer.count();
+            this.lastTotalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+
+        double next() {
+            long count = timer.count();
+            double totalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+            long deltaCount = count - lastCount;
+            double deltaTotalMs = totalMs - lastTotalMs;
+            lastCount = count;
+            lastTotalMs = totalMs;
+            return (deltaCount > 0) ? deltaTotalMs / deltaCount : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batch consumption mode for {@code app.queue.name}. Collects up to {@code app.batch.size}
+ * messages, or whatever arrived within {@code app.batch.timeout-ms} of the first one, hands
+ * them to {@link ItemListener#onMessages(List)} and acknowledges the whole batch once.
+ * <p>
+ * When enabled, the per-message {@code @JmsListener} container is not started
+ * (see {@link SubscriberApplication#jmsListenerContainerFactory}).
+ */
+@Component
+public class BatchMessageConsumer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchMessageConsumer.class);
+
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final ConnectionFactory connectionFactory;
+    private final ItemListener itemListener;
+    private final ListenerMetrics.Series listenerMetrics;
+
+    @Value("${app.batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.queue.name}")
+    private String queueName;
+
+    @Value("${app.batch.size:100}")
+    private int batchSize;
+
+    @Value("${app.batch.timeout-ms:200}")
+    private long batchTimeoutMs;
+
+    // "client" (CLIENT_ACKNOWLEDGE) or "transacted"
+    @Value("${app.batch.ack-mode:client}")
+    private String ackMode;
+
+    // How long stop() waits for the batch being processed
+    @Value("${app.shutdown.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+
+    private volatile boolean running;
+    private Thread consumerThread;
+
+    public BatchMessageConsumer(ConnectionFactory connectionFactory, ItemListener itemListener,
+                                ListenerMetrics listenerMetrics) {
+        this.connectionFactory = connectionFactory;
+        this.itemListener = itemListener;
+        this.listenerMetrics = listenerMetrics.series(ListenerMetrics.ITEM_LISTENER);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!"client".equalsIgnoreCase(ackMode) && !"transacted".equalsIgnoreCase(ackMode)) {
+            throw new IllegalStateException("Invalid app.batch.ack-mode: " + ackMode
+                + " (expected client or transacted)");
+        }
+        running = true;
+        consumerThread = new Thread(this::consumeLoop, "item-batch-consumer");
+        consumerThread.start();
+        logger.info("Batch consumer started: queue={}, size={}, timeout={}ms, ackMode={}",
+            queueName, batchSize, batchTimeoutMs, ackMode);
+    }
+
+    @Override
+    public void stop() {
+        stop(drainTimeoutMs);
+    }
+
+    /**
+     * Stops consuming and waits up to {@code timeoutMs} for the batch being processed to be
+     * acknowledged. A batch still running after that is interrupted and rolled back (or
+     * recovered) for redelivery.
+     */
+    public void stop(long timeoutMs) {
+        running = false;
+        if (consumerThread != null) {
+            try {
+                // join(0) would wait forever
+                consumerThread.join(Math.max(1, timeoutMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (consumerThread.isAlive()) {
+                logger.warn("Batch still processing after {}ms, interrupting it for redelivery", timeoutMs);
+                consumerThread.interrupt();
+            }
+            consumerThread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void consumeLoop() {
+        boolean transacted = "transacted".equalsIgnoreCase(ackMode);
+        while (running) {
+            try (Connection connection = connectionFactory.createConnection()) {
+                Session session = connection.createSession(transacted,
+                    transacted ? Session.SESSION_TRANSACTED : Session.CLIENT_ACKNOWLEDGE);
+                MessageConsumer consumer = session.createConsumer(session.createQueue(queueName));
+                connection.start();
+
+                List<Message> batch = new ArrayList<>(batchSize);
+                while (running) {
+                    collectBatch(consumer, batch);
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+                    processBatch(session, batch, transacted);
+                    batch.clear();
+                }
+            } catch (JMSException e) {
+                logger.error("Batch consumer connection error: {}, reconnecting in {}ms",
+                    e.getMessage(), RECONNECT_DELAY_MS);
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void collectBatch(MessageConsumer consumer, List<Message> batch) throws JMSException {
+        // Block for the first message, then top up until the batch is full or the window closes
+        Message first = consumer.receive(batchTimeoutMs);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+        while (batch.size() < batchSize) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            Message next = (remainingMs > 0) ? consumer.receive(remainingMs) : consumer.receiveNoWait();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void processBatch(Session session, List<Message> batch, boolean transacted) throws JMSException {
+        try {
+            itemListener.onMessages(batch);
+            // One acknowledgement covers every message consumed by the session
+            long ackStart = System.nanoTime();
+            if (transacted) {
+                session.commit();
+            } else {
+                batch.get(batch.size() - 1).acknowledge();
+            }
+            listenerMetrics.recordStage(ListenerMetrics.Stage.ACK, ackStart);
+        } catch (Exception e) {
+            logger.error("Error processing batch of {} messages, requesting redelivery: {}",
+                batch.size(), e.getMessage());
+            if (transacted) {
+                session.rollback();
+            } else {
+                session.recover();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Acknowledges messages that the receive thread handed to other threads ({@link MessagePipeline}
+ * workers, {@link OrderedLaneDispatcher} lanes), once their processing has finished.
+ * <p>
+ * A JMS session is single-threaded, so processing threads only report the outcome here and the
+ * acknowledgements themselves run on the receive thread, from
+ * {@link InstrumentedMessageListenerContainer} before each message and when a receive times
+ * out. The session uses the provider's per-message acknowledgement mode
+ * ({@code app.listener.individual-ack-mode}), so acknowledging one message does not cover the
+ * ones still being processed.
+ * <p>
+ * A failed message is left unacknowledged. The receive thread then stops handing off, waits
+ * for the other handed-off messages to finish and acknowledges the successful ones, and
+ * recovers the session: the provider redelivers the failed messages together with the
+ * message that was received meanwhile and not processed.
+ */
+@Component
+public class DeferredAcknowledger {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredAcknowledger.class);
+
+    private static final long SETTLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final ListenerMetrics.Series metrics;
+
+    // Processed and waiting for the receive thread to acknowledge them
+    private final Queue<Message> processed = new ConcurrentLinkedQueue<>();
+    // Handed off and neither acknowledged nor failed yet
+    private final AtomicInteger unacknowledged = new AtomicInteger();
+    private final Counter recoveries;
+    private volatile boolean failed;
+    private volatile long epoch;
+
+    public DeferredAcknowledger(@Value("${app.pipeline.enabled:false}") boolean pipelineEnabled,
+                                @Value("${app.dispatch.lanes:0}") int laneCount,
+                                ListenerMetrics metrics, MeterRegistry registry) {
+        this.enabled = pipelineEnabled || laneCount > 0;
+        this.metrics = metrics.series(ListenerMetrics.ITEM_LISTENER);
+        this.recoveries = Counter.builder("listener.deferred-ack.recoveries")
+            .description("Session recoveries after a message processed off the receive thread failed")
+            .register(registry);
+        Gauge.builder("listener.deferred-ack.unacknowledged", unacknowledged, AtomicInteger::get)
+            .description("Messages handed off by the receive thread and not yet acknowledged")
+            .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int unacknowledged() {
+        return unacknowledged.get();
+    }
+
+    /** Number of recoveries so far; stays the same while any handed-off message is unsettled. */
+    public long recoveries() {
+        return epoch;
+    }
+
+    /** Receive thread: the message is about to be processed on another thread. */
+    public void handedOff() {
+        unacknowledged.incrementAndGet();
+    }
+
+    /** Processing thread: the message is done with and can be acknowledged. */
+    public void processed(Message message) {
+        processed.add(message);
+    }
+
+    /** Processing thread: a handed-off message failed and must be redelivered. */
+    public void failed() {
+        failed = true;
+        unacknowledged.decrementAndGet();
+    }
+
+    /**
+     * Receive thread: acknowledges the processed messages and, after a failure, waits for the
+     * remaining handed-off messages and recovers the session.
+     *
+     * @return {@code true} when the session was recovered; a message received but not yet
+     *         processed is then redelivered as well and must not be processed now
+     */
+    public boolean settle(Session session) throws JMSException {
+        acknowledgeProcessed();
+        if (!failed) {
+            return false;
+        }
+        // Recovering now would also redeliver messages that are still being processed
+        while (unacknowledged.get() > 0) {
+            LockSupport.parkNanos(SETTLE_PARK_NANOS);
+            acknowledgeProcessed();
+        }
+        session.recover();
+        failed = false;
+        epoch++;
+        recoveries.increment();
+        logger.warn("Processing failed off the receive thread, session recovered for redelivery");
+        return true;
+    }
+
+    /** Receive thread: settles and recovers the session even though no handed-off message failed. */
+    public void recover(Session session) throws JMSException {
+        failed = true;
+        settle(session);
+    }
+
+    private void acknowledgeProcessed() {
+        Message message;
+        while ((message = processed.poll()) != null) {
+            long start = System.nanoTime();
+            try {
+                message.acknowledge();
+            } catch (JMSException e) {
+                // Redelivered with the next recovery
+                logger.warn("Deferred acknowledge failed: {}", e.getMessage());
+                failed = true;
+            }
+            metrics.recordStage(ListenerMetrics.Stage.ACK, start);
+            unacknowledged.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo;
+
+/**
+ * Processing stage for a received envelope, run by {@link MessagePipeline} workers and
+ * {@link RetryScheduler} retries off the JMS receive thread.
+ */
+@FunctionalInterface
+public interface EnvelopeHandler {
+
+    void process(MessageEnvelope envelope, boolean logDetail) throws Exception;
+}
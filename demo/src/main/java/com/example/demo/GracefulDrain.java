@@ -0,0 +1,134 @@
+package com.example.demo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.stereotype.Component;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/**
+ * Drains the listener when the application context closes, before any bean is stopped or
+ * destroyed, so a rolling restart does not abandon messages mid-processing and have them
+ * redelivered all at once to the new instances:
+ * <ol>
+ *   <li>mark the listener as draining (readiness turns OUT_OF_SERVICE)</li>
+ *   <li>stop the listener containers, the batch consumer and the shards, so no new messages are pulled</li>
+ *   <li>wait up to {@code app.shutdown.drain-timeout-ms} for in-flight messages to finish and
+ *       for the {@link DeferredAcknowledger} to acknowledge them</li>
+ *   <li>flush pending spans (SDK mode only; the agent flushes on its own shutdown hook)</li>
+ * </ol>
+ * With deferred acknowledgement the {@code itemListener} container is stopped only after the
+ * wait: its receive thread is the one that acknowledges, and meanwhile it leaves newly received
+ * messages unacknowledged for redelivery. The other containers ({@code app.subscriptions}) are
+ * stopped before the wait in every mode, so they do not keep taking new work.
+ */
+@Component
+public class GracefulDrain implements ApplicationListener<ContextClosedEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(GracefulDrain.class);
+
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final long SPAN_FLUSH_TIMEOUT_SECONDS = 10;
+    // Receive thread of the deferred acknowledgements, see ItemListener#onMessage
+    private static final String ITEM_LISTENER_ID = "itemListener";
+
+    private final JmsListenerEndpointRegistry registry;
+    private final BatchMessageConsumer batchConsumer;
+    private final ShardedConsumer shardedConsumer;
+    private final InFlightTracker inFlightTracker;
+    private final DeferredAcknowledger acknowledger;
+    private final OpenTelemetry openTelemetry;
+    private final long drainTimeoutMs;
+    private final AtomicBoolean drained = new AtomicBoolean();
+
+    public GracefulDrain(JmsListenerEndpointRegistry registry, BatchMessageConsumer batchConsumer,
+                         ShardedConsumer shardedConsumer, InFlightTracker inFlightTracker, DeferredAcknowledger acknowledger,
+                         OpenTelemetry openTelemetry,
+                         @Value("${app.shutdown.drain-timeout-ms:30000}") long drainTimeoutMs) {
+        this.registry = registry;
+        this.batchConsumer = batchConsumer;
+        this.shardedConsumer = shardedConsumer;
+        this.inFlightTracker = inFlightTracker;
+        this.acknowledger = acknowledger;
+        this.openTelemetry = openTelemetry;
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        // Child contexts (e.g. a separate management context) publish their own close events
+        if (event.getApplicationContext().getParent() != null || !drained.compareAndSet(false, true)) {
+            return;
+        }
+        inFlightTracker.startDraining();
+        logger.info("Draining listener: inFlight={}, unacknowledged={}", inFlightTracker.get(), acknowledger.unacknowledged());
+
+        if (!acknowledger.isEnabled()) {
+            registry.stop();
+        } else {
+            stopContainersExceptItemListener();
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        if (batchConsumer.isRunning()) {
+            // Returns once the current batch has been processed and acknowledged, or at the deadline
+            batchConsumer.stop(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        }
+        if (shardedConsumer.isRunning()) {
+            // Returns once the listeners running on the shard sessions have finished
+            shardedConsumer.stop();
+        }
+
+        while (!isIdle() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (isIdle()) {
+            logger.info("Listener drained in {}ms", elapsedMs);
+        } else {
+            logger.warn("Drain timeout after {}ms: {} messages still in flight, {} unacknowledged, they will be redelivered",
+                elapsedMs, inFlightTracker.get(), acknowledger.unacknowledged());
+        }
+        if (acknowledger.isEnabled()) {
+            registry.stop();
+        }
+
+        flushSpans();
+    }
+
+    private void stopContainersExceptItemListener() {
+        for (String id : registry.getListenerContainerIds()) {
+            if (!ITEM_LISTENER_ID.equals(id)) {
+                registry.getListenerContainer(id).stop();
+            }
+        }
+    }
+
+    private boolean isIdle() {
+        return inFlightTracker.get() == 0 && acknowledger.unacknowledged() == 0;
+    }
+
+    private void flushSpans() {
+        if (openTelemetry instanceof OpenTelemetrySdk sdk) {
+            CompletableResultCode flush = sdk.getSdkTracerProvider().forceFlush()
+                .join(SPAN_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!flush.isSuccess()) {
+                logger.warn("Pending spans could not be flushed within {}s", SPAN_FLUSH_TIMEOUT_SECONDS);
+            }
+        }
+    }
+}
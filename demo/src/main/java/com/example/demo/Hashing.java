@@ -0,0 +1,59 @@
+package com.example.demo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fast non-cryptographic 64-bit hashing (FNV-1a mixing with a murmur3 finalizer), used to
+ * key compact caches without keeping the original strings.
+ */
+final class Hashing {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    static long hash64(CharSequence value) {
+        return finish(update(FNV_OFFSET, value));
+    }
+
+    /** Continues a running hash; start with {@link #seed()} and end with {@link #finish(long)}. */
+    static long update(long hash, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Continues a running hash over the buffer's remaining bytes, eight at a time, without
+     * moving its position. Each word is pre-mixed so its high bits reach the low bits too.
+     */
+    static long update(long hash, ByteBuffer bytes) {
+        int position = bytes.position();
+        int limit = bytes.limit();
+        for (; position + Long.BYTES <= limit; position += Long.BYTES) {
+            long word = bytes.getLong(position) * 0x9e3779b97f4a7c15L;
+            hash = (hash ^ (word ^ (word >>> 32))) * FNV_PRIME;
+        }
+        for (; position < limit; position++) {
+            hash = (hash ^ (bytes.get(position) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static long seed() {
+        return FNV_OFFSET;
+    }
+
+    /** Murmur3 fmix64 avalanche, so every input bit affects the high and low bits used for indexing. */
+    static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
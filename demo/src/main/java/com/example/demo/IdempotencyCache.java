@@ -0,0 +1,130 @@
+package com.example.demo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bounded, time-expiring set of 64-bit keys stored off-heap as {@code [key, expiresAtMillis]}
+ * long pairs, so millions of entries cost no Java objects and no GC work.
+ * <p>
+ * The table is split into independently locked segments. Each key probes a short window of
+ * slots in its segment; an insert takes a free or expired slot in the window or, when the
+ * window is full, evicts the entry closest to expiry. Memory is therefore fixed at 16 bytes
+ * per slot regardless of traffic.
+ * <p>
+ * When a store file is given the table is memory-mapped from it, so entries survive a restart
+ * (expiry uses wall-clock time). Key {@code 0} marks an empty slot and is never stored.
+ */
+final class IdempotencyCache implements Closeable {
+
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+    private static final int PROBE_WINDOW = 8;
+    private static final int LONGS_PER_SLOT = 2;
+
+    /** Largest capacity whose table (16 bytes per slot) still fits one buffer: 2^26 slots, 1 GiB. */
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private final LongBuffer table;
+    private final int segmentSlots;
+    private final Object[] locks = new Object[SEGMENTS];
+    private final MappedByteBuffer mapped;
+
+    IdempotencyCache(int capacity, Path storeFile) throws IOException {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Idempotency cache capacity must be between 1 and " + MAX_CAPACITY
+                + ": " + capacity);
+        }
+        // Next power of two, computed in long so it cannot wrap near the int limit
+        long slots = Math.max(SEGMENTS * PROBE_WINDOW, Long.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        this.segmentSlots = (int) (slots / SEGMENTS);
+        long bytes = slots * LONGS_PER_SLOT * Long.BYTES;
+        for (int i = 0; i < SEGMENTS; i++) {
+            locks[i] = new Object();
+        }
+
+        if (storeFile == null) {
+            this.mapped = null;
+            this.table = ByteBuffer.allocateDirect((int) bytes).asLongBuffer();
+        } else {
+            // A table written with another capacity has a different layout: start empty
+            if (Files.exists(storeFile) && Files.size(storeFile) != bytes) {
+                Files.delete(storeFile);
+            }
+            try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+            this.table = mapped.asLongBuffer();
+        }
+    }
+
+    int slots() {
+        return segmentSlots * SEGMENTS;
+    }
+
+    boolean contains(long key, long nowMillis) {
+        int segment = segment(key);
+        synchronized (locks[segment]) {
+            for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+                int index = slotIndex(segment, key, probe);
+                if (table.get(index) == key) {
+                    return table.get(index + 1) > nowMillis;
+                }
+            }
+            return false;
+        }
+    }
+
+    void put(long key, long expiresAtMillis, long nowMillis) {
+        int segment = segment(key);
+        synchronized (locks[segment]) {
+            int target = -1;
+            long earliestExpiry = Long.MAX_VALUE;
+            for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+                int index = slotIndex(segment, key, probe);
+                long slotKey = table.get(index);
+                long slotExpiry = table.get(index + 1);
+                if (slotKey == key) {
+                    target = index;
+                    break;
+                }
+                if (slotKey == 0L || slotExpiry <= nowMillis) {
+                    // Free slot: no eviction needed
+                    if (earliestExpiry != Long.MIN_VALUE) {
+                        target = index;
+                        earliestExpiry = Long.MIN_VALUE;
+                    }
+                } else if (slotExpiry < earliestExpiry) {
+                    target = index;
+                    earliestExpiry = slotExpiry;
+                }
+            }
+            table.put(target, key);
+            table.put(target + 1, expiresAtMillis);
+        }
+    }
+
+    private static int segment(long key) {
+        return (int) (key >>> SEGMENT_SHIFT);
+    }
+
+    private int slotIndex(int segment, long key, int probe) {
+        int slot = segment * segmentSlots + (((int) key + probe) & (segmentSlots - 1));
+        return slot * LONGS_PER_SLOT;
+    }
+
+    @Override
+    public void close() {
+        if (mapped != null) {
+            mapped.force();
+        }
+    }
+}
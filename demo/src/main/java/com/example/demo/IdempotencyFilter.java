@@ -0,0 +1,116 @@
+package com.example.demo;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.JMSException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Optional redelivery dedup in front of message processing. A message whose key (the
+ * JMSMessageID, or {@code app.dedup.key-property} when set) was already processed within
+ * {@code app.dedup.ttl-seconds} is skipped.
+ * <p>
+ * Keys are kept as 64-bit hashes in an {@link IdempotencyCache} of {@code app.dedup.capacity}
+ * entries, in direct memory or memory-mapped from {@code app.dedup.store-file} so the cache
+ * survives a restart. A key is only recorded after processing succeeded, so a failed message
+ * is processed again when it is redelivered.
+ */
+@Component
+public class IdempotencyFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    /** Returned by {@link #key(MessageEnvelope)} when the message carries no dedup key. */
+    static final long NO_KEY = 0L;
+
+    private final boolean enabled;
+    private final String keyProperty;
+    private final long ttlMillis;
+    private final IdempotencyCache cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public IdempotencyFilter(@Value("${app.dedup.enabled:false}") boolean enabled,
+                             @Value("${app.dedup.key-property:}") String keyProperty,
+                             @Value("${app.dedup.capacity:1048576}") int capacity,
+                             @Value("${app.dedup.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${app.dedup.store-file:}") String storeFile,
+                             MeterRegistry registry) throws IOException {
+        if (enabled && (capacity <= 0 || capacity > IdempotencyCache.MAX_CAPACITY)) {
+            throw new IllegalArgumentException("app.dedup.capacity must be between 1 and "
+                + IdempotencyCache.MAX_CAPACITY + ": " + capacity);
+        }
+        if (enabled && ttlSeconds <= 0) {
+            throw new IllegalArgumentException("app.dedup.ttl-seconds must be positive: " + ttlSeconds);
+        }
+        this.enabled = enabled;
+        this.keyProperty = keyProperty.isBlank() ? null : keyProperty.trim();
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.cache = enabled ? new IdempotencyCache(capacity, storeFile.isBlank() ? null : Path.of(storeFile)) : null;
+        this.hits = Counter.builder("listener.dedup")
+            .description("Messages checked against the idempotency cache")
+            .tag("result", "hit")
+            .register(registry);
+        this.misses = Counter.builder("listener.dedup")
+            .description("Messages checked against the idempotency cache")
+            .tag("result", "miss")
+            .register(registry);
+        if (enabled) {
+            logger.info("Redelivery dedup enabled: key={}, slots={}, ttlSeconds={}, storeFile={}",
+                (this.keyProperty != null) ? this.keyProperty : "JMSMessageID", cache.slots(), ttlSeconds,
+                storeFile.isBlank() ? "(direct memory)" : storeFile);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Hashed dedup key of the message, or {@link #NO_KEY} when it has none. */
+    public long key(MessageEnvelope envelope) throws JMSException {
+        Object value = (keyProperty != null) ? envelope.property(keyProperty) : envelope.messageId();
+        if (value == null) {
+            return NO_KEY;
+        }
+        long key = Hashing.hash64(value.toString());
+        return (key == NO_KEY) ? 1L : key;
+    }
+
+    /** Whether the key was already processed; counts a hit or a miss. Keyless messages always pass. */
+    public boolean isDuplicate(long key) {
+        if (key == NO_KEY) {
+            return false;
+        }
+        if (cache.contains(key, System.currentTimeMillis())) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    /** Records the key as processed; call only once processing succeeded. */
+    public void markProcessed(long key) {
+        if (key != NO_KEY) {
+            long now = System.currentTimeMillis();
+            cache.put(key, now + ttlMillis, now);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts messages received by the listener whose processing has not finished yet, on any
+ * path (listener thread, lanes, pipeline, batch). Used by {@link GracefulDrain} to wait for
+ * in-flight work on shutdown and by {@link ListenerHealthIndicator} for readiness.
+ */
+@Component
+public class InFlightTracker {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean draining;
+
+    public InFlightTracker(MeterRegistry registry) {
+        Gauge.builder("listener.in-flight", inFlight, AtomicInteger::get)
+            .description("Messages received and not yet processed")
+            .register(registry);
+    }
+
+    public void begin(int messages) {
+        inFlight.addAndGet(messages);
+    }
+
+    public void end(int messages) {
+        inFlight.addAndGet(-messages);
+    }
+
+    public int get() {
+        return inFlight.get();
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    void startDraining() {
+        draining = true;
+    }
+}
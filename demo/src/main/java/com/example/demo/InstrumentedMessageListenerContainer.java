@@ -0,0 +1,83 @@
+package com.example.demo;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+/**
+ * Listener container that times the acknowledgement / commit issued after the listener
+ * returns, which happens inside the container and is not visible from {@link ItemListener}.
+ * <p>
+ * Only CLIENT_ACKNOWLEDGE and transacted sessions (the default) are timed. Under
+ * AUTO_ACKNOWLEDGE the provider acknowledges inside the synchronous {@code receive()}, so the
+ * container has nothing left to do here and a timing would always read about zero.
+ * <p>
+ * In pipeline mode the container does not acknowledge at all: the listener only hands the
+ * message to {@link MessagePipeline}, and the container's receive thread settles the
+ * {@link DeferredAcknowledger} before each message and whenever a receive times out. After a
+ * recovery the message just received is redelivered, so it is not passed to the listener.
+ * While draining for shutdown, received messages are left unacknowledged for redelivery.
+ */
+public class InstrumentedMessageListenerContainer extends DefaultMessageListenerContainer {
+
+    private final ListenerMetrics.Series listenerMetrics;
+    private final DeferredAcknowledger acknowledger;
+    private final InFlightTracker inFlightTracker;
+
+    public InstrumentedMessageListenerContainer(ListenerMetrics.Series listenerMetrics) {
+        this(listenerMetrics, null, null);
+    }
+
+    public InstrumentedMessageListenerContainer(ListenerMetrics.Series listenerMetrics, DeferredAcknowledger acknowledger,
+                                                InFlightTracker inFlightTracker) {
+        this.listenerMetrics = listenerMetrics;
+        this.acknowledger = (acknowledger != null && acknowledger.isEnabled()) ? acknowledger : null;
+        this.inFlightTracker = inFlightTracker;
+    }
+
+    @Override
+    protected void doExecuteListener(Session session, Message message) throws JMSException {
+        if (acknowledger != null && (acknowledger.settle(session) || inFlightTracker.isDraining())) {
+            return;
+        }
+        super.doExecuteListener(session, message);
+    }
+
+    @Override
+    protected void noMessageReceived(Object invoker, Session session) {
+        if (acknowledger != null) {
+            try {
+                acknowledger.settle(session);
+            } catch (JMSException e) {
+                logger.warn("Could not settle deferred acknowledgements: " + e.getMessage());
+            }
+        }
+        super.noMessageReceived(invoker, session);
+    }
+
+    @Override
+    protected void rollbackOnExceptionIfNecessary(Session session, Throwable ex) throws JMSException {
+        if (acknowledger != null && !session.getTransacted()) {
+            // The listener failed before handing the message off: redeliver it once the rest is settled
+            acknowledger.recover(session);
+            return;
+        }
+        super.rollbackOnExceptionIfNecessary(session, ex);
+    }
+
+    @Override
+    protected void commitIfNecessary(Session session, Message message) throws JMSException {
+        if (acknowledger != null && !session.getTransacted()) {
+            return;
+        }
+        if (!session.getTransacted() && !isClientAcknowledge(session)) {
+            super.commitIfNecessary(session, message);
+            return;
+        }
+        long start = System.nanoTime();
+        super.commitIfNecessary(session, message);
+        listenerMetrics.recordStage(ListenerMetrics.Stage.ACK, start);
+    }
+}
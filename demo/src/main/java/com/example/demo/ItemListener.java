@@ -3,13 +3,40 @@
 //  *  0.1.1 - Added a flag to control traceparent extraction source
 //  *  0.2.0 - Updated logic to ItemListen2.java
 //  *  0.2.1 - Modified to try making root span following upstream solace (message-processing span is the root span of whole processing)
+//  *  0.2.2 - Bound to the configurable jmsListenerContainerFactory (concurrent consumers)
+//  *  0.2.3 - Optional per-key ordered lane dispatch (OrderedLaneDispatcher)
+//  *  0.2.4 - Batch handler onMessages(List<Message>) with one linked parent span per batch
+//  *  0.2.5 - Allocation-free trace context extraction (shared getter, cached propagator)
+//  *  0.2.6 - Trace context source resolved once into a TraceContextSource strategy
+//  *  0.2.7 - Stages receive a decode-once MessageEnvelope instead of the raw Message
+//  *  0.2.8 - Per-message detail logged at DEBUG for sampled messages only (MessageLoggingPolicy)
+//  *  0.2.9 - Tracer and propagator taken from the OpenTelemetry bean (OpenTelemetryConfig)
+//  *  0.3.0 - Spans only built for sampled messages (TraceSamplingPolicy)
+//  *  0.3.1 - Stage timers, message age and redelivery metrics (ListenerMetrics)
+//  *  0.3.2 - Optional redelivery dedup before processing (IdempotencyFilter)
+//  *  0.3.3 - BytesMessage payloads read into pooled buffers, decoded only for logging
+//  *  0.3.4 - Typed JSON payload decoded before processing (PayloadDecoder)
+//  *  0.3.5 - Optional pipeline mode: receive thread hands envelopes to pipeline workers (MessagePipeline)
+//  *  0.3.6 - Failed messages retried with backoff and dead-lettered instead of rethrown (RetryScheduler)
+//  *  0.3.7 - In-flight messages tracked on every path for the shutdown drain (InFlightTracker)
+//  *  0.3.8 - Also serves app.subscriptions destinations with their own trace source and logging (Subscription)
+//  *  0.3.9 - Optional capture of received messages (MessageJournal) and offline replay (JournalReplayer)
+//  *  0.4.0 - Stale messages shed before any span or processing work (StaleMessagePolicy)
+//  *  0.4.1 - Optional JMSPriority lanes with their own worker threads (PriorityLaneDispatcher)
+//  *  0.4.2 - Optional cache of processing results keyed by payload hash (ProcessingResultCache)
+//  *  0.4.3 - Collaborators constructor-injected
+//  *  0.4.4 - Lane messages acknowledged after processing; failures redelivered in order instead of retried
+//  *  0.4.5 - Priority lanes are separate selector consumers acknowledged after processing (PriorityLaneRegistrar)
+//  *  0.4.6 - Stage and age timers tagged by container; retries, deferred and replayed messages in their own series
 //  */
 
 package com.example.demo;
 
 import jakarta.jms.Message;
-import jakarta.jms.TextMessage;
-import java.util.Enumeration;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.annotation.JmsListener;
@@ -17,268 +44,562 @@ import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-// Solace OTel helper:
-import com.solace.opentelemetry.javaagent.jms.SolaceJmsW3CTextMapGetter;
-
 // OTel libraries:
-import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.trace.*;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapPropagator;
 
 @Component
 public class ItemListener {
 
     private static final Logger logger = LoggerFactory.getLogger(ItemListener.class);
 
-    @Value("${app.queue.name}")
-    private String queueName;
+    private final String queueName;
+
+    private final int itemListenerDelay;
+
+    private final Tracer tracer;
 
-    @Value("${itemListenerDelay}")
-    private int itemListenerDelay;
+    // Resolved once; the propagator and getters are stateless and shared by all listener threads
+    private final TextMapPropagator propagator;
 
-    @Value("${trace.context.source:jms-properties}")
-    private String traceContextSource;
+    private final OrderedLaneDispatcher laneDispatcher;
+    private final TraceContextSourceHolder traceContextSource;
+    private final MessageLoggingPolicy loggingPolicy;
+    private final TraceSamplingPolicy samplingPolicy;
+    // Work processed off the containers, kept out of the containers' series (AdaptiveConcurrencyController)
+    private final ListenerMetrics.Series retryMetrics;
+    private final ListenerMetrics.Series deferredMetrics;
+    private final ListenerMetrics.Series replayMetrics;
+    private final IdempotencyFilter idempotencyFilter;
+    private final PayloadBufferPool payloadBufferPool;
+    private final PayloadDecoder payloadDecoder;
+    private final MessagePipeline pipeline;
+    private final RetryScheduler retryScheduler;
+    private final InFlightTracker inFlightTracker;
+    private final MessageJournal journal;
+    private final StaleMessagePolicy stalePolicy;
+    private final ProcessingResultCache resultCache;
 
-    // OTel API only
-    private static final Tracer TRACER =
-        GlobalOpenTelemetry.get().getTracer("poc.solace.jms");
+    // app.queue.name with the global trace source and logging policy
+    private final Subscription defaultSubscription;
 
-    private static final SolaceJmsW3CTextMapGetter GETTER =
-        new SolaceJmsW3CTextMapGetter();
+    // Held once so handing envelopes to the pipeline or retries does not allocate a handler per message
+    private final EnvelopeHandler envelopeHandler = this::processDefault;
+    private final EnvelopeHandler pipelineHandler = this::processPipelined;
+    private final EnvelopeHandler deferredHandler = this::processDeferred;
+
+    public ItemListener(@Value("${app.queue.name}") String queueName,
+                        @Value("${itemListenerDelay}") int itemListenerDelay,
+                        OpenTelemetry openTelemetry,
+                        OrderedLaneDispatcher laneDispatcher,
+                        TraceContextSourceHolder traceContextSource,
+                        MessageLoggingPolicy loggingPolicy,
+                        TraceSamplingPolicy samplingPolicy,
+                        ListenerMetrics metrics,
+                        IdempotencyFilter idempotencyFilter,
+                        PayloadBufferPool payloadBufferPool,
+                        PayloadDecoder payloadDecoder,
+                        MessagePipeline pipeline,
+                        RetryScheduler retryScheduler,
+                        InFlightTracker inFlightTracker,
+                        MessageJournal journal,
+                        StaleMessagePolicy stalePolicy,
+                        ProcessingResultCache resultCache) {
+        this.queueName = queueName;
+        this.itemListenerDelay = itemListenerDelay;
+        this.tracer = openTelemetry.getTracer("poc.solace.jms");
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        this.laneDispatcher = laneDispatcher;
+        this.traceContextSource = traceContextSource;
+        this.loggingPolicy = loggingPolicy;
+        this.samplingPolicy = samplingPolicy;
+        this.retryMetrics = metrics.series(ListenerMetrics.RETRY);
+        this.deferredMetrics = metrics.series(ListenerMetrics.DEFERRED);
+        this.replayMetrics = metrics.series(ListenerMetrics.REPLAY);
+        this.idempotencyFilter = idempotencyFilter;
+        this.payloadBufferPool = payloadBufferPool;
+        this.payloadDecoder = payloadDecoder;
+        this.pipeline = pipeline;
+        this.retryScheduler = retryScheduler;
+        this.inFlightTracker = inFlightTracker;
+        this.journal = journal;
+        this.stalePolicy = stalePolicy;
+        this.resultCache = resultCache;
+        this.defaultSubscription = new Subscription(ListenerMetrics.ITEM_LISTENER, queueName, traceContextSource,
+            loggingPolicy, metrics);
+    }
 
-    @JmsListener(destination = "${app.queue.name}")
+    @JmsListener(id = "itemListener", destination = "${app.queue.name}",
+        containerFactory = "jmsListenerContainerFactory")
     public void onMessage(Message message) throws Exception {
-        logger.info("==================== ItemListener2 Message Processing Started ====================");
-        logger.info("Configured trace context source: {}", traceContextSource);
+        // In flight from here until processing ends, on whichever thread that happens
+        inFlightTracker.begin(1);
+        if (pipeline.isEnabled()) {
+            // Only decode and trace extraction on the receive thread; acknowledged once a worker has processed it
+            boolean logDetail = loggingPolicy.sampleMessage(logger);
+            try {
+                pipeline.publish(receiveEnvelope(message, logDetail, defaultSubscription), logDetail, pipelineHandler);
+            } catch (Exception e) {
+                inFlightTracker.end(1);
+                throw e;
+            }
+            return;
+        }
+        if (!laneDispatcher.isEnabled()) {
+            try {
+                handleMessage(message, defaultSubscription);
+            } finally {
+                inFlightTracker.end(1);
+            }
+            return;
+        }
+        // Acknowledged once its lane has processed it; the lane ends the in-flight count
+        try {
+            laneDispatcher.dispatch(message, () -> handleMessage(message, defaultSubscription));
+        } catch (RuntimeException e) {
+            inFlightTracker.end(1);
+            throw e;
+        }
+    }
+
+    /**
+     * Handler for a priority lane's consumers ({@link PriorityLaneRegistrar}), called on the
+     * lane's own container threads and acknowledged by that container once it returns.
+     */
+    public void onPriorityLaneMessage(Message message) throws Exception {
+        inFlightTracker.begin(1);
+        try {
+            handleMessage(message, defaultSubscription);
+        } finally {
+            inFlightTracker.end(1);
+        }
+    }
+
+    /**
+     * Handler for an {@code app.subscriptions} destination, called on that subscription's own
+     * container threads. Lanes and pipeline mode only apply to {@code app.queue.name}.
+     */
+    public void onSubscriptionMessage(Message message, Subscription subscription) throws Exception {
+        inFlightTracker.begin(1);
+        try {
+            handleMessage(message, subscription);
+        } finally {
+            inFlightTracker.end(1);
+        }
+    }
+
+    /**
+     * Handler for a message read back by {@link JournalReplayer}, processed as if received on
+     * {@code app.queue.name}. Failures are not retried: there is no JMS message to redeliver.
+     */
+    public void onReplayedMessage(MessageEnvelope envelope) throws Exception {
+        inFlightTracker.begin(1);
+        try {
+            boolean logDetail = loggingPolicy.sampleMessage(logger);
+            replayMetrics.recordReceived(envelope);
+            processEnvelope(envelope, logDetail, defaultSubscription);
+        } finally {
+            inFlightTracker.end(1);
+        }
+    }
+
+    private void handleMessage(Message message, Subscription subscription) throws Exception {
+        // Decided once per message so unsampled messages skip all detail formatting
+        boolean logDetail = subscription.loggingPolicy().sampleMessage(logger);
+        processEnvelope(receiveEnvelope(message, logDetail, subscription), logDetail, subscription);
+    }
+
+    private void processDefault(MessageEnvelope envelope, boolean logDetail) throws Exception {
+        processEnvelope(envelope, logDetail, defaultSubscription);
+    }
+
+    private void processPipelined(MessageEnvelope envelope, boolean logDetail) throws Exception {
+        try {
+            processEnvelope(envelope, logDetail, defaultSubscription);
+        } finally {
+            inFlightTracker.end(1);
+        }
+    }
+
+    private void processDeferred(MessageEnvelope envelope, boolean logDetail) throws Exception {
+        processAdmitted(envelope, logDetail, defaultSubscription, deferredMetrics);
+    }
+
+    private MessageEnvelope receiveEnvelope(Message message, boolean logDetail, Subscription subscription) throws Exception {
+        if (logDetail) {
+            logger.debug("==================== ItemListener2 Message Processing Started ====================");
+            logger.debug("Configured trace context source: {}", subscription.traceContextSource().get().id());
+        }
         
-        // Extract trace context first to use as parent for all spans
-        Context extractedContext = extractTraceContext(message);
+        // Extract trace context first to use as parent for all spans, then decode the message once
+        long extractStart = System.nanoTime();
+        MessageEnvelope envelope = MessageEnvelope.of(message,
+            extractTraceContext(message, logDetail, subscription.traceContextSource().get()), payloadBufferPool);
+        subscription.metrics().recordStage(ListenerMetrics.Stage.EXTRACT, extractStart);
+        subscription.metrics().recordReceived(envelope);
+        if (journal.isEnabled()) {
+            journal.record(envelope);
+        }
+        return envelope;
+    }
+
+    private void processEnvelope(MessageEnvelope envelope, boolean logDetail, Subscription subscription) throws Exception {
+        // Too old to be useful: shed before paying for spans, decoding and processing
+        if (stalePolicy.isEnabled() && stalePolicy.isStale(envelope)) {
+            EnvelopeHandler handler = (subscription == defaultSubscription) ? deferredHandler
+                : (deferred, deferredLogDetail) -> processAdmitted(deferred, deferredLogDetail, subscription, deferredMetrics);
+            if (stalePolicy.shed(envelope, logDetail, handler)) {
+                return;
+            }
+        }
+        processAdmitted(envelope, logDetail, subscription, stageMetrics(envelope, subscription));
+    }
+
+    /** Series the processing stages of this attempt are recorded in. */
+    private ListenerMetrics.Series stageMetrics(MessageEnvelope envelope, Subscription subscription) {
+        if (envelope.isReplayed()) {
+            return replayMetrics;
+        }
+        return (envelope.attempt() > 1) ? retryMetrics : subscription.metrics();
+    }
+
+    private void processAdmitted(MessageEnvelope envelope, boolean logDetail, Subscription subscription,
+                                 ListenerMetrics.Series stageMetrics) throws Exception {
+        boolean traced = samplingPolicy.shouldTrace(Span.fromContext(envelope.context()).getSpanContext());
         
-        // Create a root span to cover the entire message processing
-        Span messageProcessingSpan = TRACER.spanBuilder("message-processing")
-            .setSpanKind(SpanKind.CONSUMER)
-            .setAttribute("messaging.system", "solace")
-            .setAttribute("messaging.destination.name", queueName)
-            .setAttribute("component", "ItemListener2")
-            .setAttribute("operation", "onMessage")
-            .setAttribute("trace.context.source", traceContextSource)
-            .setParent(extractedContext) // Follow upstream Solace trace
-            .startSpan();
-
-        try (Scope messageScope = messageProcessingSpan.makeCurrent()) {
+        // Create a root span to cover the entire message processing. Unsampled messages build no
+        // span at all: the invalid span absorbs attributes and end(), while the upstream span is
+        // made current (for propagation) but never modified or ended here
+        Span messageProcessingSpan = !traced ? Span.getInvalid()
+            : tracer.spanBuilder("message-processing")
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute("messaging.system", "solace")
+                .setAttribute("messaging.destination.name", subscription.destination())
+                .setAttribute("component", "ItemListener2")
+                .setAttribute("operation", "onMessage")
+                .setAttribute("trace.context.source", subscription.traceContextSource().get().id())
+                .setParent(envelope.context()) // Follow upstream Solace trace
+                .startSpan();
+
+        try (Scope messageScope = (traced ? messageProcessingSpan : Span.fromContext(envelope.context())).makeCurrent()) {
             
             // Extract and output JMS properties and message payload
-            extractAndOutputMessageInfo(message);
+            if (logDetail) {
+                long infoStart = System.nanoTime();
+                extractAndOutputMessageInfo(envelope, subscription.loggingPolicy());
+                stageMetrics.recordStage(ListenerMetrics.Stage.INFO, infoStart);
+            }
             
-            // Process message with extracted context
-            processMessageWithContext(message, extractedContext);
+            // Skip messages already processed (redelivered after a lost ack); recorded only after success
+            long dedupKey = idempotencyFilter.isEnabled() ? idempotencyFilter.key(envelope) : IdempotencyFilter.NO_KEY;
+            if (idempotencyFilter.isEnabled() && idempotencyFilter.isDuplicate(dedupKey)) {
+                if (logDetail) {
+                    logger.debug("Duplicate message {} skipped", envelope.messageId());
+                }
+                messageProcessingSpan.setAttribute("processing.status", "duplicate");
+                return;
+            }
+
+            // Same payload processed recently: reuse its result, keeping only this span and the ack
+            long cacheKey = resultCache.isEnabled() ? resultCache.key(envelope) : ProcessingResultCache.NO_KEY;
+            boolean cached = resultCache.isEnabled() && resultCache.get(cacheKey) != null;
+            if (cached) {
+                if (logDetail) {
+                    logger.debug("Message {} served from result cache", envelope.messageId());
+                }
+            } else {
+                // Process message with extracted context
+                long processStart = System.nanoTime();
+                processMessageWithContext(envelope, logDetail, traced, subscription, stageMetrics);
+                stageMetrics.recordStage(ListenerMetrics.Stage.PROCESS, processStart);
+                if (resultCache.isEnabled()) {
+                    resultCache.put(cacheKey, ProcessingResultCache.PROCESSED);
+                }
+            }
+            if (idempotencyFilter.isEnabled()) {
+                idempotencyFilter.markProcessed(dedupKey);
+            }
             
-            messageProcessingSpan.setAttribute("processing.status", "success");
+            messageProcessingSpan.setAttribute("processing.status", cached ? "cached" : "success");
         } catch (Exception e) {
             logger.error("Error in message processing: {}", e.getMessage());
             messageProcessingSpan.recordException(e);
             messageProcessingSpan.setStatus(StatusCode.ERROR, e.getMessage());
+            messageProcessingSpan.setAttribute("processing.attempt", envelope.attempt());
+            // Retried later or dead-lettered off this thread; otherwise the container redelivers.
+            // A lane leaves it to the broker, so later messages of its key cannot overtake it
+            EnvelopeHandler retryHandler = (subscription == defaultSubscription) ? envelopeHandler
+                : (retried, retriedLogDetail) -> processEnvelope(retried, retriedLogDetail, subscription);
+            if (!envelope.isReplayed() && !OrderedLaneDispatcher.isLaneThread()
+                    && retryScheduler.handleFailure(envelope, logDetail, e, retryHandler)) {
+                return;
+            }
             throw e;
         } finally {
+            envelope.release();
             messageProcessingSpan.end();
-            logger.info("==================== ItemListener2 Message Processing Completed ====================");
+            if (logDetail) {
+                logger.debug("==================== ItemListener2 Message Processing Completed ====================");
+            }
+        }
+    }
+
+    /**
+     * Batch handler used by {@link BatchMessageConsumer}. Creates a single message-processing
+     * span for the whole batch, linked to each message's upstream context, and processes the
+     * batch in one pass. The caller acknowledges the batch once this returns.
+     */
+    public void onMessages(List<Message> messages) throws Exception {
+        inFlightTracker.begin(messages.size());
+        try {
+            handleBatch(messages);
+        } finally {
+            inFlightTracker.end(messages.size());
+        }
+    }
+
+    private void handleBatch(List<Message> messages) throws Exception {
+        boolean logDetail = loggingPolicy.sampleMessage(logger);
+        if (logDetail) {
+            logger.debug("==================== ItemListener2 Batch Processing Started ({} messages) ====================",
+                messages.size());
+        }
+
+        List<MessageEnvelope> envelopes = new ArrayList<>(messages.size());
+        List<Long> dedupKeys = new ArrayList<>(idempotencyFilter.isEnabled() ? messages.size() : 0);
+        // A sampled upstream if any, otherwise any valid one, so parent-based sampling follows the upstream decision
+        SpanContext batchParent = SpanContext.getInvalid();
+        for (Message message : messages) {
+            long extractStart = System.nanoTime();
+            MessageEnvelope envelope = MessageEnvelope.of(message, extractTraceContext(message, logDetail, traceContextSource.get()),
+                payloadBufferPool);
+            defaultSubscription.metrics().recordStage(ListenerMetrics.Stage.EXTRACT, extractStart);
+            defaultSubscription.metrics().recordReceived(envelope);
+            if (journal.isEnabled()) {
+                journal.record(envelope);
+            }
+            if (stalePolicy.isEnabled() && stalePolicy.isStale(envelope)
+                    && stalePolicy.shed(envelope, logDetail, deferredHandler)) {
+                // Dropped or side-queued (defer is rejected in batch mode): acknowledged with the rest of the batch
+                continue;
+            }
+            if (idempotencyFilter.isEnabled()) {
+                long dedupKey = idempotencyFilter.key(envelope);
+                if (idempotencyFilter.isDuplicate(dedupKey)) {
+                    // The journal may already have read the payload into a pooled buffer
+                    envelope.release();
+                    continue;
+                }
+                dedupKeys.add(dedupKey);
+            }
+            envelopes.add(envelope);
+            SpanContext upstream = Span.fromContext(envelope.context()).getSpanContext();
+            if (upstream.isSampled() || (upstream.isValid() && !batchParent.isValid())) {
+                batchParent = upstream;
+            }
+        }
+
+        if (envelopes.isEmpty()) {
+            // Whole batch was redelivered duplicates; the caller still acknowledges it
+            return;
+        }
+
+        // Parent-based: traced when any linked upstream is sampled, not traced when the upstreams all
+        // decided against it, and per the root ratio only when no message carried a context
+        Span batchSpan = Span.getInvalid();
+        if (samplingPolicy.shouldTrace(batchParent)) {
+            SpanBuilder batchSpanBuilder = tracer.spanBuilder("message-processing")
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute("messaging.system", "solace")
+                .setAttribute("messaging.destination.name", queueName)
+                // Only the messages processed: shed and duplicate ones were dropped from the batch above.
+                // This can exceed the link count, since only messages with a valid upstream context are linked
+                .setAttribute("messaging.batch.message_count", (long) envelopes.size())
+                .setAttribute("component", "ItemListener2")
+                .setAttribute("operation", "onMessages")
+                .setAttribute("trace.context.source", traceContextSource.get().id())
+                .setNoParent();
+            for (MessageEnvelope envelope : envelopes) {
+                SpanContext upstream = Span.fromContext(envelope.context()).getSpanContext();
+                if (upstream.isValid()) {
+                    batchSpanBuilder.addLink(upstream);
+                }
+            }
+            batchSpan = batchSpanBuilder.startSpan();
+        }
+
+        try (Scope batchScope = batchSpan.makeCurrent()) {
+            if (logDetail) {
+                for (MessageEnvelope envelope : envelopes) {
+                    extractAndOutputMessageInfo(envelope, loggingPolicy);
+                }
+            }
+
+            long processStart = System.nanoTime();
+            processBatch(envelopes, logDetail);
+            defaultSubscription.metrics().recordStage(ListenerMetrics.Stage.PROCESS, processStart);
+            for (long dedupKey : dedupKeys) {
+                idempotencyFilter.markProcessed(dedupKey);
+            }
+
+            batchSpan.setAttribute("processing.status", "success");
+        } catch (Exception e) {
+            logger.error("Error in batch processing: {}", e.getMessage());
+            batchSpan.recordException(e);
+            batchSpan.setStatus(StatusCode.ERROR, e.getMessage());
+            throw e;
+        } finally {
+            for (MessageEnvelope envelope : envelopes) {
+                envelope.release();
+            }
+            batchSpan.end();
+            if (logDetail) {
+                logger.debug("==================== ItemListener2 Batch Processing Completed ====================");
+            }
+        }
+    }
+
+    private void processBatch(List<MessageEnvelope> envelopes, boolean logDetail) throws Exception {
+        // Simulate one downstream round-trip for the whole batch
+        Thread.sleep(itemListenerDelay);
+
+        if (logDetail) {
+            logger.debug("========== Batch Processing ==========");
+            for (MessageEnvelope envelope : envelopes) {
+                logger.debug("Subscriber: {}", envelope.destination());
+                logger.debug("Result: {}", loggedBody(envelope, loggingPolicy));
+            }
         }
     }
 
-    private void extractAndOutputMessageInfo(Message message) throws Exception {
-        logger.info("========== Message Information Extraction ==========");
+    private void extractAndOutputMessageInfo(MessageEnvelope envelope, MessageLoggingPolicy policy) throws Exception {
+        logger.debug("========== Message Information Extraction ==========");
         
         // Basic message info
-        logger.info("Message type: {}", message.getClass().getSimpleName());
-        logger.info("Message ID: {}", message.getJMSMessageID());
-        logger.info("Message timestamp: {}", message.getJMSTimestamp());
-        logger.info("JMS Destination: {}", 
-            (message.getJMSDestination() != null) ? message.getJMSDestination().toString() : "unknown");
+        logger.debug("Message type: {}", envelope.messageType());
+        logger.debug("Message ID: {}", envelope.messageId());
+        logger.debug("Message timestamp: {}", envelope.timestamp());
+        logger.debug("JMS Destination: {}", envelope.destination());
         
-        // Extract and output JMS properties
-        logger.info("========== JMS Properties ==========");
+        // Output allowlisted JMS properties
+        logger.debug("========== JMS Properties ==========");
         try {
-            Enumeration<?> propertyNames = message.getPropertyNames();
-            boolean hasProperties = false;
-            while (propertyNames.hasMoreElements()) {
-                hasProperties = true;
-                String propertyName = (String) propertyNames.nextElement();
-                Object propertyValue = message.getObjectProperty(propertyName);
-                logger.info("JMS Property - {}: {}", propertyName, propertyValue);
+            Map<String, Object> properties = policy.loggedProperties(envelope);
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                logger.debug("JMS Property - {}: {}", property.getKey(), property.getValue());
             }
-            if (!hasProperties) {
-                logger.info("No JMS properties found");
+            if (properties.isEmpty()) {
+                logger.debug("No JMS properties found");
             }
         } catch (Exception e) {
             logger.error("Error reading JMS properties: {}", e.getMessage());
         }
         
-        // Extract and output message payload
-        logger.info("========== Message Payload ==========");
-        if (message instanceof TextMessage) {
-            String body = ((TextMessage) message).getText();
-            logger.info("Message body type: TextMessage");
-            logger.info("Message body length: {} characters", (body != null ? body.length() : 0));
-            logger.info("Message body content: {}", body);
+        // Output message payload (truncated)
+        logger.debug("========== Message Payload ==========");
+        if (envelope.isText()) {
+            String body = envelope.body();
+            logger.debug("Message body type: TextMessage");
+            logger.debug("Message body length: {} characters", (body != null ? body.length() : 0));
+            logger.debug("Message body content: {}", policy.abbreviateBody(body));
+        } else if (envelope.isBytes()) {
+            ByteBuffer payload = envelope.payload();
+            logger.debug("Message body type: BytesMessage");
+            logger.debug("Message body length: {} bytes", payload.remaining());
+            logger.debug("Message body content: {}", policy.abbreviatePayload(payload));
         } else {
-            logger.info("Message body type: {}", message.getClass().getSimpleName());
-            logger.info("Message body content: <non-text-message>");
+            logger.debug("Message body type: {}", envelope.messageType());
+            logger.debug("Message body content: <non-text-message>");
         }
     }
 
-    private Context extractTraceContext(Message message) {
-        logger.info("========== Trace Context Extraction ==========");
-        logger.info("Using trace context source: {}", traceContextSource);
-        
-        Context extractedContext = Context.current();
-        
-        if ("jms-properties".equalsIgnoreCase(traceContextSource)) {
-            extractedContext = extractFromJmsProperties(message);
-        } else if ("headers".equalsIgnoreCase(traceContextSource)) {
-            extractedContext = extractFromHeaders(message);
-        } else {
-            logger.warn("Invalid trace context source: {}, falling back to JMS properties", traceContextSource);
-            extractedContext = extractFromJmsProperties(message);
-        }
-        
-        // Log final extracted context information
-        if (extractedContext != null) {
-            SpanContext spanContext = Span.fromContext(extractedContext).getSpanContext();
-            if (spanContext.isValid()) {
-                logger.info("========== Extracted Trace Context ==========");
-                logger.info("Trace ID: {}", spanContext.getTraceId());
-                logger.info("Span ID: {}", spanContext.getSpanId());
-                logger.info("Is Remote: {}", spanContext.isRemote());
-                logger.info("Is Sampled: {}", spanContext.isSampled());
-            } else {
-                logger.warn("Extracted context is not valid");
-            }
-        } else {
-            logger.warn("No context extracted");
+    private String loggedBody(MessageEnvelope envelope, MessageLoggingPolicy policy) throws Exception {
+        if (envelope.isText()) {
+            return policy.abbreviateBody(envelope.body());
         }
-        
-        return extractedContext;
+        return envelope.isBytes() ? policy.abbreviatePayload(envelope.payload()) : "<non-text>";
     }
 
-    private Context extractFromJmsProperties(Message message) {
-        logger.info("========== JMS Properties Trace Context Extraction ==========");
-        
-        try {
-            String traceparent = message.getStringProperty("traceparent");
-            String tracestate = message.getStringProperty("tracestate");
-            
-            logger.info("traceparent from JMS property: {}", traceparent);
-            logger.info("tracestate from JMS property: {}", tracestate);
-            
-            if (traceparent != null) {
-                logger.info("Found traceparent in JMS properties, creating context...");
-                
-                // Create a custom text map with the trace context from JMS properties
-                java.util.Map<String, String> traceContextMap = new java.util.HashMap<>();
-                traceContextMap.put("traceparent", traceparent);
-                if (tracestate != null) {
-                    traceContextMap.put("tracestate", tracestate);
-                }
-                
-                logger.info("Created trace context map: {}", traceContextMap);
-                
-                // Extract context using the custom map
-                Context extracted = GlobalOpenTelemetry.get()
-                    .getPropagators().getTextMapPropagator()
-                    .extract(Context.current(), traceContextMap, new io.opentelemetry.context.propagation.TextMapGetter<java.util.Map<String, String>>() {
-                        @Override
-                        public java.lang.Iterable<String> keys(java.util.Map<String, String> carrier) {
-                            return carrier.keySet();
-                        }
-                        
-                        @Override
-                        public String get(java.util.Map<String, String> carrier, String key) {
-                            return carrier.get(key);
-                        }
-                    });
-                
-                logger.info("Successfully extracted context from JMS properties");
-                return extracted;
-            } else {
-                logger.warn("No traceparent found in JMS properties");
-                return Context.current();
-            }
-        } catch (Exception e) {
-            logger.error("Error extracting trace context from JMS properties: {}", e.getMessage());
-            return Context.current();
+    /** Characters for a text body, bytes for a bytes payload, 0 otherwise. */
+    private int bodyLength(MessageEnvelope envelope) throws Exception {
+        if (envelope.isBytes()) {
+            return envelope.payload().remaining();
         }
+        String body = envelope.body();
+        return (body != null) ? body.length() : 0;
     }
 
-    private Context extractFromHeaders(Message message) {
-        logger.info("========== Headers Trace Context Extraction ==========");
+    private Context extractTraceContext(Message message, boolean logDetail, TraceContextSource source) {
+        Context extractedContext = source.extract(propagator, message);
+        if (!logDetail) {
+            return extractedContext;
+        }
         
-        try {
-            logger.info("Using SolaceJmsW3CTextMapGetter to extract W3C trace context from headers...");
-            
-            // Extract upstream context using the Solace getter
-            Context extracted = GlobalOpenTelemetry.get()
-                .getPropagators().getTextMapPropagator()
-                .extract(Context.current(), message, GETTER);
-            
-            logger.info("Successfully extracted context from headers");
-            return extracted;
-        } catch (Exception e) {
-            logger.error("Error extracting trace context from headers: {}", e.getMessage());
-            return Context.current();
+        // Log final extracted context information
+        logger.debug("========== Trace Context Extraction ==========");
+        logger.debug("Using trace context source: {}", source.id());
+        SpanContext spanContext = Span.fromContext(extractedContext).getSpanContext();
+        if (spanContext.isValid()) {
+            logger.debug("========== Extracted Trace Context ==========");
+            logger.debug("Trace ID: {}", spanContext.getTraceId());
+            logger.debug("Span ID: {}", spanContext.getSpanId());
+            logger.debug("Is Remote: {}", spanContext.isRemote());
+            logger.debug("Is Sampled: {}", spanContext.isSampled());
+        } else if (source != TraceContextSource.NONE) {
+            logger.debug("Extracted context is not valid");
         }
+        
+        return extractedContext;
     }
 
-    private void processMessageWithContext(Message message, Context extractedContext) throws Exception {
-        logger.info("========== Message Processing with Extracted Context ==========");
-        
+    private void processMessageWithContext(MessageEnvelope envelope, boolean logDetail, boolean traced,
+                                           Subscription subscription, ListenerMetrics.Series stageMetrics) throws Exception {
+        // Typed payload for the business logic; only valid until this thread decodes its next message
+        Object payload = null;
+        if (payloadDecoder.isEnabled()) {
+            long decodeStart = System.nanoTime();
+            payload = payloadDecoder.decode(envelope);
+            stageMetrics.recordStage(ListenerMetrics.Stage.DECODE, decodeStart);
+        }
+
         // Simulate processing delay
         Thread.sleep(itemListenerDelay);
         
-        // Create span as child of the extracted context
-        Span processingSpan = TRACER.spanBuilder("solace receive")
-            .setSpanKind(SpanKind.CONSUMER)
-            .setAttribute("messaging.system", "solace")
-            .setAttribute("messaging.destination.name", queueName)
-            .setAttribute("current.method", "ItemListener2")
-            .setAttribute("current.instrumentation", "solace.library")
-            .setParent(extractedContext) // Set the extracted context as parent
-            .startSpan();
+        Context extractedContext = envelope.context();
         
-        try (Scope processingScope = processingSpan.makeCurrent()) {
-            logger.info("========== Processing Message ==========");
-            
-            String dest = (message.getJMSDestination() != null)
-                ? message.getJMSDestination().toString() : "unknown";
-            String body = (message instanceof TextMessage)
-                ? ((TextMessage) message).getText() : "<non-text>";
-            
-            logger.info("Subscriber: {}", dest);
-            logger.info("Result: {}", body);
-            
-            processingSpan.setAttribute("processing.status", "success");
-            processingSpan.setAttribute("processing.destination", dest);
-            processingSpan.setAttribute("processing.body.length", body != null ? body.length() : 0);
-            
-            // Log trace information for the processing span
-            SpanContext spanContext = processingSpan.getSpanContext();
-            logger.info("========== Processing Span Trace Information ==========");
-            logger.info("Processing Span Trace ID: {}", spanContext.getTraceId());
-            logger.info("Processing Span ID: {}", spanContext.getSpanId());
-            logger.info("Processing Span Is Remote: {}", spanContext.isRemote());
-            logger.info("Processing Span Is Sampled: {}", spanContext.isSampled());
+        // Create span as child of the extracted context (sampled messages only)
+        Span processingSpan = !traced ? Span.getInvalid()
+            : tracer.spanBuilder("solace receive")
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute("messaging.system", "solace")
+                .setAttribute("messaging.destination.name", subscription.destination())
+                .setAttribute("current.method", "ItemListener2")
+                .setAttribute("current.instrumentation", "solace.library")
+                .setParent(extractedContext) // Set the extracted context as parent
+                .startSpan();
+        
+        try (Scope processingScope = (traced ? processingSpan : Span.fromContext(extractedContext)).makeCurrent()) {
+            if (processingSpan.isRecording()) {
+                processingSpan.setAttribute("processing.status", "success");
+                processingSpan.setAttribute("processing.destination", envelope.destination());
+                processingSpan.setAttribute("processing.body.length", bodyLength(envelope));
+                if (payload != null) {
+                    processingSpan.setAttribute("processing.payload.type", payload.getClass().getSimpleName());
+                }
+            }
             
-            // Log parent context information
-            if (extractedContext != null) {
-                SpanContext parentContext = Span.fromContext(extractedContext).getSpanContext();
-                if (parentContext.isValid()) {
-                    logger.info("========== Parent Context Information ==========");
-                    logger.info("Parent Trace ID: {}", parentContext.getTraceId());
-                    logger.info("Parent Span ID: {}", parentContext.getSpanId());
-                    logger.info("Parent Is Remote: {}", parentContext.isRemote());
-                    logger.info("Parent Is Sampled: {}", parentContext.isSampled());
-                    logger.info("Span is child of parent: {}", 
-                        spanContext.getTraceId().equals(parentContext.getTraceId()));
+            if (logDetail) {
+                logger.debug("========== Processing Message ==========");
+                logger.debug("Subscriber: {}", envelope.destination());
+                logger.debug("Result: {}", loggedBody(envelope, subscription.loggingPolicy()));
+                if (payload != null) {
+                    logger.debug("Decoded payload: {}", payload);
+                }
+                if (traced) {
+                    logSpanDetail(processingSpan.getSpanContext(), extractedContext);
                 }
             }
             
@@ -289,7 +610,27 @@ public class ItemListener {
             throw e;
         } finally {
             processingSpan.end();
-            logger.info("Processing span ended");
+        }
+    }
+
+    private void logSpanDetail(SpanContext spanContext, Context extractedContext) {
+        // Log trace information for the processing span
+        logger.debug("========== Processing Span Trace Information ==========");
+        logger.debug("Processing Span Trace ID: {}", spanContext.getTraceId());
+        logger.debug("Processing Span ID: {}", spanContext.getSpanId());
+        logger.debug("Processing Span Is Remote: {}", spanContext.isRemote());
+        logger.debug("Processing Span Is Sampled: {}", spanContext.isSampled());
+        
+        // Log parent context information
+        SpanContext parentContext = Span.fromContext(extractedContext).getSpanContext();
+        if (parentContext.isValid()) {
+            logger.debug("========== Parent Context Information ==========");
+            logger.debug("Parent Trace ID: {}", parentContext.getTraceId());
+            logger.debug("Parent Span ID: {}", parentContext.getSpanId());
+            logger.debug("Parent Is Remote: {}", parentContext.isRemote());
+            logger.debug("Parent Is Sampled: {}", parentContext.isSampled());
+            logger.debug("Span is child of parent: {}", 
+                spanContext.getTraceId().equals(parentContext.getTraceId()));
         }
     }
 }
@@ -0,0 +1,148 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.InputCoercionException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+/**
+ * Example {@code app.payload.type}: the item fields the processing stage reads. Any other
+ * JSON fields in the message are skipped while parsing. Reads its fields from the parser
+ * directly when decoded with {@code app.payload.reuse}, with the same results and failures as
+ * data binding for malformed values.
+ */
+public class ItemPayload implements StreamingPayload {
+
+    private String itemId;
+    private String name;
+    private int quantity;
+    private BigDecimal price;
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    @Override
+    public void reset() {
+        itemId = null;
+        name = null;
+        quantity = 0;
+        price = null;
+    }
+
+    @Override
+    public void readFields(JsonParser parser) throws IOException {
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "itemId", "name", "quantity", "price" -> readField(parser, field, value);
+                // Undeclared field: skips nested objects and arrays, no-op for scalars
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void readField(JsonParser parser, String field, JsonToken value) throws IOException {
+        if (value.isStructStart()) {
+            throw MismatchedInputException.from(parser, ItemPayload.class,
+                "Expected a scalar value for " + field + ", got " + value);
+        }
+        switch (field) {
+            case "itemId" -> itemId = parser.getValueAsString();
+            case "name" -> name = parser.getValueAsString();
+            case "quantity" -> quantity = readInt(parser, field, value);
+            default -> price = readDecimal(parser, field, value);
+        }
+    }
+
+    // Same coercions as data binding: numeric strings are parsed, an empty string is the
+    // empty value, and anything else that is not a number fails instead of defaulting
+
+    private static int readInt(JsonParser parser, String field, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_NULL -> 0;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                try {
+                    yield value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : parser.getValueAsInt();
+                } catch (InputCoercionException e) {
+                    // Data binding reports an out-of-range number as a mapping failure
+                    throw JsonMappingException.from(parser, e.getOriginalMessage(), e);
+                }
+            }
+            case VALUE_STRING -> {
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    yield 0;
+                }
+                try {
+                    yield Integer.parseInt(text);
+                } catch (NumberFormatException e) {
+                    throw InvalidFormatException.from(parser, "Cannot parse " + field + " \"" + text
+                        + "\" as an int", text, int.class);
+                }
+            }
+            default -> throw MismatchedInputException.from(parser, int.class,
+                "Cannot coerce " + value + " to an int for " + field);
+        };
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser, String field, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDecimalValue();
+            case VALUE_STRING -> {
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    yield null;
+                }
+                try {
+                    yield new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    throw InvalidFormatException.from(parser, "Cannot parse " + field + " \"" + text
+                        + "\" as a BigDecimal", text, BigDecimal.class);
+                }
+            }
+            default -> throw MismatchedInputException.from(parser, BigDecimal.class,
+                "Cannot coerce " + value + " to a BigDecimal for " + field);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ItemPayload{itemId=" + itemId + ", name=" + name + ", quantity=" + quantity + ", price=" + price + "}";
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+import java.util.List;
+
+import io.opentelemetry.context.propagation.TextMapGetter;
+
+/**
+ * Stateless {@link TextMapGetter} reading W3C trace context straight from JMS string
+ * properties. Shared by all listener threads, so extraction needs no per-message carrier map.
+ */
+enum JmsPropertiesTextMapGetter implements TextMapGetter<Message> {
+
+    INSTANCE;
+
+    static final String TRACEPARENT = "traceparent";
+    static final String TRACESTATE = "tracestate";
+
+    private static final List<String> KEYS = List.of(TRACEPARENT, TRACESTATE);
+
+    @Override
+    public Iterable<String> keys(Message carrier) {
+        return KEYS;
+    }
+
+    @Override
+    public String get(Message carrier, String key) {
+        if (carrier == null) {
+            return null;
+        }
+        try {
+            return carrier.getStringProperty(key);
+        } catch (JMSException e) {
+            return null;
+        }
+    }
+}
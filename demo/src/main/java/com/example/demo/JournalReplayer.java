@@ -0,0 +1,184 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+
+/**
+ * Replays a {@link MessageJournal} file through {@link ItemListener} processing without a
+ * broker, when {@code app.replay.file} is set. The listener containers are not started in
+ * this mode.
+ * <p>
+ * {@code app.replay.speed} paces the replay against the recorded receive times: {@code 1}
+ * reproduces the original traffic shape, {@code 2} runs it twice as fast and {@code 0} as fast
+ * as the processing allows. Message timestamps are shifted by the time since capture, so
+ * message age and expiry look as they did on receive. With {@code app.replay.threads} above 1
+ * messages are processed concurrently, like a multi-consumer container.
+ */
+@Component
+public class JournalReplayer implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalReplayer.class);
+
+    private static final int QUEUED_PER_THREAD = 64;
+
+    private static final TextMapGetter<Map<String, String>> MAP_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(Map<String, String> carrier) {
+            return carrier.keySet();
+        }
+
+        @Override
+        public String get(Map<String, String> carrier, String key) {
+            return (carrier != null) ? carrier.get(key) : null;
+        }
+    };
+
+    private final String file;
+    private final double speed;
+    private final int threads;
+    private final ItemListener itemListener;
+    private final TextMapPropagator propagator;
+
+    public JournalReplayer(@Value("${app.replay.file:}") String file,
+                           @Value("${app.replay.speed:1.0}") double speed,
+                           @Value("${app.replay.threads:1}") int threads,
+                           @Value("${app.batch.enabled:false}") boolean batchEnabled,
+                           ItemListener itemListener,
+                           OpenTelemetry openTelemetry) {
+        if (!file.isBlank() && (speed < 0 || threads < 1)) {
+            throw new IllegalArgumentException("Invalid app.replay settings: speed=" + speed + ", threads=" + threads);
+        }
+        if (!file.isBlank() && batchEnabled) {
+            throw new IllegalStateException("app.replay.file and app.batch.enabled are mutually exclusive");
+        }
+        this.file = file.trim();
+        this.speed = speed;
+        this.threads = threads;
+        this.itemListener = itemListener;
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+    }
+
+    public boolean isEnabled() {
+        return !file.isEmpty();
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        Thread replay = new Thread(() -> {
+            try {
+                replay(Path.of(file));
+            } catch (Exception e) {
+                logger.error("Replay of {} failed: {}", file, e.getMessage(), e);
+            }
+        }, "journal-replay");
+        replay.start();
+    }
+
+    void replay(Path path) throws IOException, InterruptedException {
+        MappedByteBuffer journal;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (journal.capacity() < MessageJournal.HEADER_BYTES || journal.getInt(0) != MessageJournal.MAGIC) {
+            throw new IllegalArgumentException("Not a message journal: " + path);
+        }
+        if (journal.getInt(4) != MessageJournal.VERSION) {
+            throw new IllegalArgumentException("Unsupported journal version " + journal.getInt(4) + ": " + path);
+        }
+        journal.position(MessageJournal.HEADER_BYTES);
+        logger.info("Replaying {} at speed {} on {} threads", path.toAbsolutePath(),
+            (speed > 0) ? speed : "max", threads);
+
+        ThreadPoolExecutor executor = (threads > 1) ? new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * QUEUED_PER_THREAD), replayThreadFactory(),
+            new ThreadPoolExecutor.CallerRunsPolicy()) : null;
+        AtomicLong replayed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long start = System.nanoTime();
+        long firstReceivedNanos = -1;
+
+        MessageJournal.Record record;
+        while ((record = MessageJournal.read(journal)) != null) {
+            if (firstReceivedNanos < 0) {
+                firstReceivedNanos = record.receivedNanos;
+            }
+            if (speed > 0) {
+                pace(start + (long) ((record.receivedNanos - firstReceivedNanos) / speed));
+            }
+            MessageEnvelope envelope = envelopeOf(record);
+            Runnable task = () -> {
+                try {
+                    itemListener.onReplayedMessage(envelope);
+                    replayed.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                }
+            };
+            if (executor != null) {
+                executor.execute(task);
+            } else {
+                task.run();
+            }
+        }
+
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long total = replayed.get() + failed.get();
+        logger.info("Replay of {} finished: {} messages ({} failed) in {} ms, {} msgs/sec", path.toAbsolutePath(),
+            total, failed.get(), elapsedMs, String.format("%.1f", total * 1000.0 / elapsedMs));
+    }
+
+    private MessageEnvelope envelopeOf(MessageJournal.Record record) {
+        // Same age on replay as on receive
+        long shiftMillis = System.currentTimeMillis() - record.receivedAtMillis;
+        long timestamp = (record.timestamp > 0) ? record.timestamp + shiftMillis : record.timestamp;
+        long expiration = (record.expiration > 0) ? record.expiration + shiftMillis : record.expiration;
+        Context context = propagator.extract(Context.current(), record.traceFields, MAP_GETTER);
+        return MessageEnvelope.replayed(record.messageId, timestamp, expiration, record.redelivered, record.destination,
+            context, record.messageType, record.properties, record.text, record.bytes);
+    }
+
+    private static void pace(long targetNanos) throws InterruptedException {
+        long wait;
+        while ((wait = targetNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Replay interrupted");
+            }
+        }
+    }
+
+    private static ThreadFactory replayThreadFactory() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return runnable -> new Thread(runnable, "journal-replay-" + threadIndex.getAndIncrement());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code listener} health contributor, part of the readiness group: OUT_OF_SERVICE once the
+ * application is draining for shutdown, with the in-flight, unacknowledged (deferred
+ * acknowledgement) and parked retry counts as details.
+ */
+@Component
+public class ListenerHealthIndicator implements HealthIndicator {
+
+    private final InFlightTracker inFlightTracker;
+    private final DeferredAcknowledger acknowledger;
+    private final RetryScheduler retryScheduler;
+
+    public ListenerHealthIndicator(InFlightTracker inFlightTracker, DeferredAcknowledger acknowledger, RetryScheduler retryScheduler) {
+        this.inFlightTracker = inFlightTracker;
+        this.acknowledger = acknowledger;
+        this.retryScheduler = retryScheduler;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = inFlightTracker.isDraining() ? Health.outOfService() : Health.up();
+        return builder
+            .withDetail("inFlight", inFlightTracker.get())
+            .withDetail("unacknowledged", acknowledger.unacknowledged())
+            .withDetail("retriesPending", retryScheduler.pendingCount())
+            .withDetail("draining", inFlightTracker.isDraining())
+            .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Per-stage latency and end-to-end age metrics for the listener, exposed through Actuator
+ * ({@code /actuator/metrics}, {@code /actuator/prometheus}).
+ * <p>
+ * All timers publish a percentile histogram (p50/p99/p99.9 can be computed server side) plus
+ * client-side percentiles. Stage and age timers are tagged with the {@code container} whose
+ * work they measure: {@code itemListener}, an {@code app.subscriptions} id, or {@code retry},
+ * {@code deferred} and {@code replay} for messages processed off the containers. Each
+ * {@link Series} is resolved once at setup, so recording on the hot path is a lock-free
+ * histogram update with no tag lookup.
+ */
+@Component
+public class ListenerMetrics {
+
+    /** Container tag of {@code app.queue.name}, whatever the consumption mode. */
+    public static final String ITEM_LISTENER = "itemListener";
+    /** Container tag of attempts run by {@link RetryScheduler}. */
+    public static final String RETRY = "retry";
+    /** Container tag of stale messages processed later by {@link StaleMessagePolicy}. */
+    public static final String DEFERRED = "deferred";
+    /** Container tag of messages replayed from a journal by {@link JournalReplayer}. */
+    public static final String REPLAY = "replay";
+
+    public enum Stage {
+        EXTRACT("extract"),
+        INFO("info"),
+        DECODE("decode"),
+        PROCESS("process"),
+        /** Explicit acknowledge or commit; not recorded for AUTO_ACKNOWLEDGE, where it happens inside receive(). */
+        ACK("ack");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private final Counter redelivered;
+
+    public ListenerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.redelivered = Counter.builder("listener.message.redelivered")
+            .description("Messages received with JMSRedelivered set")
+            .register(registry);
+    }
+
+    private static Timer.Builder histogramTimer(String name, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .publishPercentileHistogram()
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .percentilePrecision(2);
+    }
+
+    /** Timers of one container; resolve once and keep, not per message. */
+    public Series series(String container) {
+        return series.computeIfAbsent(container, Series::new);
+    }
+
+    /** Stage and age timers of one {@code container} tag. */
+    public final class Series {
+
+        private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+        private final Timer messageAge;
+
+        private Series(String container) {
+            for (Stage stage : Stage.values()) {
+                stageTimers.put(stage, histogramTimer("listener.stage.duration",
+                        "Time spent in a listener processing stage; ack only for CLIENT_ACKNOWLEDGE or transacted sessions")
+                    .tag("stage", stage.tag)
+                    .tag("container", container)
+                    .register(registry));
+            }
+            this.messageAge = histogramTimer("listener.message.age",
+                    "Time between JMSTimestamp (publish) and receipt by the listener")
+                .tag("container", container)
+                .register(registry);
+        }
+
+        public Timer stageTimer(Stage stage) {
+            return stageTimers.get(stage);
+        }
+
+        public Timer messageAgeTimer() {
+            return messageAge;
+        }
+
+        /** Records the stage duration since {@code startNanos} (from {@link System#nanoTime()}). */
+        public void recordStage(Stage stage, long startNanos) {
+            stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** Records end-to-end age and redelivery for a received message. */
+        public void recordReceived(MessageEnvelope envelope) {
+            if (envelope.timestamp() > 0) {
+                messageAge.record(Math.max(0L, System.currentTimeMillis() - envelope.timestamp()), TimeUnit.MILLISECONDS);
+            }
+            if (envelope.redelivered()) {
+                redelivered.increment();
+            }
+        }
+    }
+}
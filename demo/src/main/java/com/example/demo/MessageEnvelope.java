@@ -0,0 +1,260 @@
+package com.example.demo;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.opentelemetry.context.Context;
+
+/**
+ * Decode-once view of a consumed JMS message, passed through every processing stage instead
+ * of the raw {@link Message}.
+ * <p>
+ * Header values (message ID, timestamp, redelivered flag, destination) and the extracted trace
+ * {@link Context} are read once when the envelope is built. The body and the JMS properties are only
+ * materialized on first access and then cached, so stages that never look at them do not
+ * pay for provider calls or String copies. A parked retry that {@link RetryScheduler} sent back
+ * to its source queue on shutdown continues with its recorded attempt and original message ID.
+ * An envelope is handed from stage to stage and is
+ * not meant to be read by two threads at the same time.
+ * <p>
+ * A {@link BytesMessage} body is read into a pooled buffer and exposed as a read-only
+ * {@link #payload()} view, without decoding to a String. The envelope owner calls
+ * {@link #release()} once processing is done to return the buffer to the pool.
+ * <p>
+ * Envelopes read back from a {@link MessageJournal} are built with everything already decoded
+ * and have no JMS message behind them (see {@link #replayed}).
+ */
+public final class MessageEnvelope {
+
+    private static final String UNKNOWN_DESTINATION = "unknown";
+
+    private final Message message;
+    private final String messageId;
+    private final long timestamp;
+    private final long expiration;
+    private final boolean redelivered;
+    private final String destination;
+    private final Context context;
+    private final PayloadBufferPool bufferPool;
+    private final int attempt;
+    // Replayed envelopes only: recorded message class and body kind
+    private final String replayedType;
+    private final boolean replayedBytes;
+
+    private boolean bodyRead;
+    private String body;
+    private Map<String, Object> properties;
+    private ByteBuffer payload;
+    private boolean released;
+
+    private MessageEnvelope(Message message, String messageId, long timestamp, long expiration, boolean redelivered,
+                            String destination, Context context, PayloadBufferPool bufferPool, int attempt,
+                            String replayedType, boolean replayedBytes) {
+        this.message = message;
+        this.messageId = messageId;
+        this.timestamp = timestamp;
+        this.expiration = expiration;
+        this.redelivered = redelivered;
+        this.destination = destination;
+        this.context = context;
+        this.bufferPool = bufferPool;
+        this.attempt = attempt;
+        this.replayedType = replayedType;
+        this.replayedBytes = replayedBytes;
+    }
+
+    public static MessageEnvelope of(Message message, Context context) throws JMSException {
+        return of(message, context, null);
+    }
+
+    /**
+     * @param bufferPool pool for the {@link #payload()} buffer, {@code null} to allocate one per message
+     */
+    public static MessageEnvelope of(Message message, Context context, PayloadBufferPool bufferPool) throws JMSException {
+        Destination jmsDestination = message.getJMSDestination();
+        String messageId = message.getJMSMessageID();
+        int attempt = 1;
+        if (message.getObjectProperty(RetryScheduler.ATTEMPT_PROPERTY) instanceof Number requeuedAttempt) {
+            attempt = Math.max(1, requeuedAttempt.intValue());
+            String originalId = message.getStringProperty(RetryScheduler.ORIGINAL_MESSAGE_ID_PROPERTY);
+            if (originalId != null) {
+                messageId = originalId;
+            }
+        }
+        return new MessageEnvelope(message, messageId, message.getJMSTimestamp(),
+            message.getJMSExpiration(), message.getJMSRedelivered(),
+            (jmsDestination != null) ? jmsDestination.toString() : UNKNOWN_DESTINATION, context, bufferPool, attempt,
+            null, false);
+    }
+
+    /**
+     * Envelope for a message read back from a journal. Properties and body are taken as given
+     * ({@code textBody} for a text message, {@code bytesBody} for a bytes message, neither
+     * otherwise). There is no JMS message behind it: {@link #message()} returns {@code null},
+     * so it cannot be acknowledged, retried or dead-lettered.
+     */
+    public static MessageEnvelope replayed(String messageId, long timestamp, long expiration, boolean redelivered,
+                                           String destination,
+                                           Context context, String messageType, Map<String, Object> properties,
+                                           String textBody, ByteBuffer bytesBody) {
+        MessageEnvelope envelope = new MessageEnvelope(null, messageId, timestamp, expiration, redelivered, destination,
+            context, null, 1, messageType, bytesBody != null);
+        envelope.properties = Collections.unmodifiableMap(properties);
+        envelope.body = textBody;
+        envelope.bodyRead = true;
+        envelope.payload = bytesBody;
+        return envelope;
+    }
+
+    /**
+     * Envelope for the next processing attempt of the same message. Headers and trace context
+     * are carried over; the payload is read again on demand.
+     */
+    public static MessageEnvelope retryOf(MessageEnvelope previous) {
+        return new MessageEnvelope(previous.message, previous.messageId, previous.timestamp, previous.expiration,
+            previous.redelivered, previous.destination, previous.context, previous.bufferPool, previous.attempt + 1,
+            previous.replayedType, previous.replayedBytes);
+    }
+
+    /**
+     * The underlying JMS message, for acknowledgement and provider-specific access;
+     * {@code null} for a {@linkplain #isReplayed() replayed} envelope.
+     */
+    public Message message() {
+        return message;
+    }
+
+    /** JMSMessageID, or the original message's for a parked retry sent back on shutdown. */
+    public String messageId() {
+        return messageId;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /** JMSExpiration in epoch millis, 0 when the message never expires. */
+    public long expiration() {
+        return expiration;
+    }
+
+    public boolean redelivered() {
+        return redelivered;
+    }
+
+    public String destination() {
+        return destination;
+    }
+
+    /**
+     * Processing attempt, 1 for the first; incremented by {@link #retryOf(MessageEnvelope)} and
+     * carried over by a parked retry sent back on shutdown.
+     */
+    public int attempt() {
+        return attempt;
+    }
+
+    /** Upstream trace context extracted when the message was received. */
+    public Context context() {
+        return context;
+    }
+
+    /** Whether this envelope was read back from a journal instead of received from the broker. */
+    public boolean isReplayed() {
+        return message == null;
+    }
+
+    public String messageType() {
+        return (message != null) ? message.getClass().getSimpleName() : replayedType;
+    }
+
+    public boolean isText() {
+        return (message != null) ? message instanceof TextMessage : !replayedBytes && body != null;
+    }
+
+    public boolean isBytes() {
+        return (message != null) ? message instanceof BytesMessage : replayedBytes;
+    }
+
+    /**
+     * Text body, read from the provider on first call. {@code null} for non-text messages.
+     */
+    public String body() throws JMSException {
+        if (!bodyRead) {
+            body = isText() ? ((TextMessage) message).getText() : null;
+            bodyRead = true;
+        }
+        return body;
+    }
+
+    /**
+     * Bytes body as a read-only view (position 0, limit = body length), read from the provider
+     * into a pooled buffer on first call. {@code null} for non-bytes messages. Each call returns
+     * a new view over the same bytes; views must not be used after {@link #release()}.
+     */
+    public ByteBuffer payload() throws JMSException {
+        if (released) {
+            throw new IllegalStateException("Payload of message " + messageId + " was already released");
+        }
+        if (payload == null && message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            long length = bytesMessage.getBodyLength();
+            if (length > Integer.MAX_VALUE) {
+                throw new JMSException("BytesMessage body too large: " + length + " bytes");
+            }
+            ByteBuffer buffer = (bufferPool != null) ? bufferPool.acquire((int) length) : ByteBuffer.allocate((int) length);
+            bytesMessage.reset();
+            bytesMessage.readBytes(buffer.array(), (int) length);
+            payload = buffer;
+        }
+        return (payload != null) ? payload.asReadOnlyBuffer() : null;
+    }
+
+    /**
+     * Returns the payload buffer to its pool. Called once by the envelope owner when processing
+     * is done; a no-op when the payload was never read.
+     */
+    public void release() {
+        if (!released && payload != null && bufferPool != null) {
+            bufferPool.release(payload);
+        }
+        payload = null;
+        released = true;
+    }
+
+    /**
+     * Single JMS property. Served from the cached map when {@link #properties()} was already
+     * called, otherwise read directly without enumerating the rest.
+     */
+    public Object property(String name) throws JMSException {
+        if (properties != null) {
+            return properties.get(name);
+        }
+        return message.getObjectProperty(name);
+    }
+
+    /**
+     * All JMS properties in provider order, enumerated on first call.
+     */
+    public Map<String, Object> properties() throws JMSException {
+        if (properties == null) {
+            Map<String, Object> read = new LinkedHashMap<>();
+            Enumeration<?> names = message.getPropertyNames();
+            while (names.hasMoreElements()) {
+                String name = (String) names.nextElement();
+                read.put(name, message.getObjectProperty(name));
+            }
+            properties = Collections.unmodifiableMap(read);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,425 @@
+package com.example.demo;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+
+/**
+ * Optional capture of every consumed message into a memory-mapped journal file, read back by
+ * {@link JournalReplayer} to reproduce production traffic offline.
+ * <p>
+ * The file starts with a header ({@code MJNL} magic, format version, capture start time) and
+ * is followed by length-prefixed records: receive time, JMS headers, the trace context as
+ * extracted on receive (written with the configured propagator, so {@code traceparent} and
+ * {@code tracestate} for W3C), JMS properties and the text or bytes body. A record is encoded
+ * into a per-thread buffer, its range reserved with one atomic add, copied into the mapping
+ * and only then given its length, so concurrent consumers never lock each other out and a
+ * zero length marks the end of the journal.
+ * <p>
+ * The file is mapped at {@code app.journal.max-size-mb} up front (sparse on most file systems)
+ * and overwritten when the application starts. Records that no longer fit are dropped and
+ * counted; recording never fails message processing. Capture cannot be enabled together with
+ * {@code app.replay.file}: replayed messages would be journaled again, and with the same file
+ * the capture being replayed would be overwritten on startup.
+ */
+@Component
+public class MessageJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageJournal.class);
+
+    static final int MAGIC = 0x4D4A4E4C;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    static final byte BODY_NONE = 0;
+    static final byte BODY_TEXT = 1;
+    static final byte BODY_BYTES = 2;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_BYTE = 3;
+    private static final byte TYPE_SHORT = 4;
+    private static final byte TYPE_INT = 5;
+    private static final byte TYPE_LONG = 6;
+    private static final byte TYPE_FLOAT = 7;
+    private static final byte TYPE_DOUBLE = 8;
+
+    private static final int MAX_SIZE_MB = 2047;
+
+    private final boolean enabled;
+    private final Path file;
+    private final TextMapPropagator propagator;
+    private final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+    private final AtomicLong position = new AtomicLong(HEADER_BYTES);
+    private final long startNanos = System.nanoTime();
+    private final MappedByteBuffer mapped;
+    private final Counter recorded;
+    private final Counter dropped;
+    private volatile boolean closed;
+
+    public MessageJournal(@Value("${app.journal.enabled:false}") boolean enabled,
+                          @Value("${app.journal.file:messages.journal}") String file,
+                          @Value("${app.journal.max-size-mb:256}") int maxSizeMb,
+                          @Value("${app.replay.file:}") String replayFile,
+                          OpenTelemetry openTelemetry,
+                          MeterRegistry registry) throws IOException {
+        if (enabled && (maxSizeMb <= 0 || maxSizeMb > MAX_SIZE_MB)) {
+            throw new IllegalArgumentException("app.journal.max-size-mb must be between 1 and " + MAX_SIZE_MB + ": "
+                + maxSizeMb);
+        }
+        // Checked before the file is mapped: mapping truncates it
+        if (enabled && !replayFile.isBlank()) {
+            throw new IllegalStateException("app.journal.enabled cannot be combined with app.replay.file");
+        }
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        this.mapped = enabled ? map(this.file, (long) maxSizeMb << 20) : null;
+        this.recorded = Counter.builder("listener.journal")
+            .description("Messages offered to the capture journal")
+            .tag("result", "recorded")
+            .register(registry);
+        this.dropped = Counter.builder("listener.journal")
+            .description("Messages offered to the capture journal")
+            .tag("result", "dropped")
+            .register(registry);
+        if (enabled) {
+            logger.info("Message journal enabled: file={}, maxSizeMb={}", this.file.toAbsolutePath(), maxSizeMb);
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        if (Files.exists(file)) {
+            logger.warn("Overwriting existing message journal {}", file.toAbsolutePath());
+        }
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putLong(8, System.currentTimeMillis());
+        return mapped;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a received message. Reads the envelope's properties and body, which stay cached
+     * for the processing stages.
+     */
+    public void record(MessageEnvelope envelope) {
+        if (closed) {
+            return;
+        }
+        Encoder encoder = encoders.get();
+        try {
+            encode(encoder, envelope);
+        } catch (Exception e) {
+            dropped.increment();
+            logger.warn("Could not journal message {}: {}", envelope.messageId(), e.getMessage());
+            return;
+        }
+        ByteBuffer record = encoder.buffer;
+        int length = record.position();
+        long at = position.getAndAdd(length);
+        if (at + length > mapped.capacity()) {
+            // Later records fail as well: the position only grows
+            if (at <= mapped.capacity()) {
+                logger.warn("Message journal {} is full after {} messages, recording stopped",
+                    file.toAbsolutePath(), (long) recorded.count());
+            }
+            dropped.increment();
+            return;
+        }
+        mapped.put((int) at + Integer.BYTES, record.array(), Integer.BYTES, length - Integer.BYTES);
+        // Written last: a zero length is the end of the journal for the reader
+        mapped.putInt((int) at, length - Integer.BYTES);
+        recorded.increment();
+    }
+
+    private void encode(Encoder encoder, MessageEnvelope envelope) throws JMSException {
+        Message message = envelope.message();
+        encoder.reset();
+        encoder.putInt(0);
+        encoder.putLong(System.currentTimeMillis());
+        encoder.putLong(System.nanoTime() - startNanos);
+        encoder.putString(envelope.messageId());
+        encoder.putLong(envelope.timestamp());
+        encoder.putLong(envelope.expiration());
+        encoder.putInt(message.getJMSPriority());
+        encoder.putByte(envelope.redelivered() ? (byte) 1 : 0);
+        encoder.putString(envelope.destination());
+        encoder.putString(message.getJMSCorrelationID());
+        encoder.putString(message.getJMSType());
+        encoder.putString(envelope.messageType());
+
+        // Trace fields as a count followed by key/value pairs; the count is patched afterwards
+        int traceCountAt = encoder.buffer.position();
+        encoder.putShort((short) 0);
+        encoder.traceFields = 0;
+        propagator.inject(envelope.context(), encoder, Encoder::putTraceField);
+        encoder.buffer.putShort(traceCountAt, (short) encoder.traceFields);
+
+        Map<String, Object> properties = envelope.properties();
+        encoder.putInt(properties.size());
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            encoder.putString(property.getKey());
+            encoder.putValue(property.getValue());
+        }
+
+        if (envelope.isBytes()) {
+            ByteBuffer payload = envelope.payload();
+            encoder.putByte(BODY_BYTES);
+            encoder.putInt(payload.remaining());
+            encoder.ensure(payload.remaining());
+            encoder.buffer.put(payload);
+        } else if (envelope.isText() && envelope.body() != null) {
+            byte[] body = envelope.body().getBytes(StandardCharsets.UTF_8);
+            encoder.putByte(BODY_TEXT);
+            encoder.putInt(body.length);
+            encoder.ensure(body.length);
+            encoder.buffer.put(body);
+        } else {
+            encoder.putByte(BODY_NONE);
+            encoder.putInt(0);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (mapped == null) {
+            return;
+        }
+        closed = true;
+        mapped.force();
+        logger.info("Message journal closed: {} messages recorded, {} dropped, {} bytes",
+            (long) recorded.count(), (long) dropped.count(), Math.min(position.get(), mapped.capacity()));
+    }
+
+    /**
+     * Reads the record at the buffer's position and advances past it.
+     *
+     * @return {@code null} at the end of the journal
+     */
+    static Record read(ByteBuffer in) {
+        if (in.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int length = in.getInt();
+        if (length <= 0 || length > in.remaining()) {
+            return null;
+        }
+        ByteBuffer record = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        try {
+            return decode(record);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IllegalStateException("Corrupt journal record at offset " + (in.position() - length), e);
+        }
+    }
+
+    private static Record decode(ByteBuffer in) {
+        Record record = new Record();
+        record.receivedAtMillis = in.getLong();
+        record.receivedNanos = in.getLong();
+        record.messageId = getString(in);
+        record.timestamp = in.getLong();
+        record.expiration = in.getLong();
+        record.priority = in.getInt();
+        record.redelivered = in.get() != 0;
+        record.destination = getString(in);
+        record.correlationId = getString(in);
+        record.jmsType = getString(in);
+        record.messageType = getString(in);
+
+        int traceFields = in.getShort();
+        record.traceFields = new LinkedHashMap<>();
+        for (int i = 0; i < traceFields; i++) {
+            record.traceFields.put(getString(in), getString(in));
+        }
+        int properties = in.getInt();
+        record.properties = new LinkedHashMap<>();
+        for (int i = 0; i < properties; i++) {
+            record.properties.put(getString(in), getValue(in));
+        }
+
+        byte bodyKind = in.get();
+        int bodyLength = in.getInt();
+        ByteBuffer body = in.slice(in.position(), bodyLength);
+        if (bodyKind == BODY_TEXT) {
+            byte[] text = new byte[bodyLength];
+            body.get(text);
+            record.text = new String(text, StandardCharsets.UTF_8);
+        } else if (bodyKind == BODY_BYTES) {
+            // Zero-copy view into the journal
+            record.bytes = body.asReadOnlyBuffer();
+        }
+        return record;
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Object getValue(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_STRING -> getString(in);
+            case TYPE_BOOLEAN -> in.get() != 0;
+            case TYPE_BYTE -> in.get();
+            case TYPE_SHORT -> in.getShort();
+            case TYPE_INT -> in.getInt();
+            case TYPE_LONG -> in.getLong();
+            case TYPE_FLOAT -> in.getFloat();
+            case TYPE_DOUBLE -> in.getDouble();
+            default -> throw new IllegalArgumentException("Unknown property type " + type);
+        };
+    }
+
+    /** One journaled message as read back by {@link #read(ByteBuffer)}. */
+    static final class Record {
+        long receivedAtMillis;
+        long receivedNanos;
+        String messageId;
+        long timestamp;
+        long expiration;
+        int priority;
+        boolean redelivered;
+        String destination;
+        String correlationId;
+        String jmsType;
+        String messageType;
+        Map<String, String> traceFields;
+        Map<String, Object> properties;
+        String text;
+        ByteBuffer bytes;
+    }
+
+    /** Per-thread growable record buffer. */
+    private static final class Encoder {
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        int traceFields;
+
+        void reset() {
+            buffer.clear();
+        }
+
+        void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+
+        void putByte(byte value) {
+            ensure(Byte.BYTES);
+            buffer.put(value);
+        }
+
+        void putShort(short value) {
+            ensure(Short.BYTES);
+            buffer.putShort(value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putTraceField(String key, String value) {
+            putString(key);
+            putString(value);
+            traceFields++;
+        }
+
+        void putValue(Object value) {
+            if (value == null) {
+                putByte(TYPE_NULL);
+            } else if (value instanceof String string) {
+                putByte(TYPE_STRING);
+                putString(string);
+            } else if (value instanceof Boolean bool) {
+                putByte(TYPE_BOOLEAN);
+                putByte(bool ? (byte) 1 : 0);
+            } else if (value instanceof Byte b) {
+                putByte(TYPE_BYTE);
+                putByte(b);
+            } else if (value instanceof Short s) {
+                putByte(TYPE_SHORT);
+                putShort(s);
+            } else if (value instanceof Integer i) {
+                putByte(TYPE_INT);
+                putInt(i);
+            } else if (value instanceof Long l) {
+                putByte(TYPE_LONG);
+                putLong(l);
+            } else if (value instanceof Float f) {
+                putByte(TYPE_FLOAT);
+                ensure(Float.BYTES);
+                buffer.putFloat(f);
+            } else if (value instanceof Double d) {
+                putByte(TYPE_DOUBLE);
+                ensure(Double.BYTES);
+                buffer.putDouble(d);
+            } else {
+                // Not a valid JMS property type; keep its text form
+                putByte(TYPE_STRING);
+                putString(value.toString());
+            }
+        }
+    }
+}
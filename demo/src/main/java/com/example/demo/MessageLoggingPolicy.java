@@ -0,0 +1,106 @@
+package com.example.demo;
+
+import jakarta.jms.JMSException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides how much per-message detail is logged. The decision is taken once per message,
+ * before any detail is formatted, so a message that is not sampled costs no string building
+ * or property enumeration.
+ * <ul>
+ *   <li>{@code app.logging.sample-rate} - fraction of messages whose detail is logged (at DEBUG)</li>
+ *   <li>{@code app.logging.body-max-chars} - body is truncated to this many characters
+ *       (bytes for a {@code BytesMessage} payload)</li>
+ *   <li>{@code app.logging.property-allowlist} - JMS properties to log, {@code *} for all</li>
+ * </ul>
+ */
+@Component
+public class MessageLoggingPolicy {
+
+    private static final String ALL_PROPERTIES = "*";
+
+    private final double sampleRate;
+    private final int bodyMaxChars;
+    private final Set<String> propertyAllowlist;
+    private final boolean allProperties;
+
+    public MessageLoggingPolicy(@Value("${app.logging.sample-rate:1.0}") double sampleRate,
+                                @Value("${app.logging.body-max-chars:256}") int bodyMaxChars,
+                                @Value("${app.logging.property-allowlist:*}") String propertyAllowlist) {
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("app.logging.sample-rate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.bodyMaxChars = bodyMaxChars;
+        this.propertyAllowlist = Arrays.stream(propertyAllowlist.split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+        this.allProperties = this.propertyAllowlist.contains(ALL_PROPERTIES);
+    }
+
+    /**
+     * Whether detail should be logged for the current message. Always false when DEBUG is off
+     * for the given logger.
+     */
+    public boolean sampleMessage(Logger logger) {
+        if (sampleRate <= 0.0 || !logger.isDebugEnabled()) {
+            return false;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public String abbreviateBody(String body) {
+        if (body == null || bodyMaxChars < 0 || body.length() <= bodyMaxChars) {
+            return body;
+        }
+        return body.substring(0, bodyMaxChars) + "...(" + body.length() + " chars)";
+    }
+
+    /**
+     * UTF-8 text of a bytes payload for logging. Only the logged prefix is decoded, so a large
+     * payload is never turned into a full String.
+     */
+    public String abbreviatePayload(ByteBuffer payload) {
+        if (payload == null) {
+            return null;
+        }
+        int length = payload.remaining();
+        if (bodyMaxChars < 0 || length <= bodyMaxChars) {
+            return StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+        }
+        ByteBuffer prefix = payload.duplicate();
+        prefix.limit(prefix.position() + bodyMaxChars);
+        return StandardCharsets.UTF_8.decode(prefix) + "...(" + length + " bytes)";
+    }
+
+    /**
+     * JMS properties allowed by the allowlist. Only enumerates every property when the
+     * allowlist is {@code *}; otherwise looks up the allowlisted names directly.
+     */
+    public Map<String, Object> loggedProperties(MessageEnvelope envelope) throws JMSException {
+        if (allProperties) {
+            return envelope.properties();
+        }
+        Map<String, Object> logged = new LinkedHashMap<>();
+        for (String name : propertyAllowlist) {
+            Object value = envelope.property(name);
+            if (value != null) {
+                logged.put(name, value);
+            }
+        }
+        return logged;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.demo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.Message;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pipelined execution for the listener: the JMS receive thread only decodes the envelope and
+ * extracts the trace context, then publishes it into a preallocated ring of slots. Worker
+ * threads claim slots and run processing (spans included).
+ * <p>
+ * Sequences are plain counters: the receive thread publishes, workers claim with a CAS, mark
+ * their slot completed and advance a watermark over contiguous completed slots, which frees
+ * them for reuse. A full ring blocks the receive thread, so at most
+ * {@code app.pipeline.ring-size} messages are in flight. The ring has a single publisher: the
+ * listener container runs one consumer in pipeline mode.
+ * <p>
+ * Workers report each outcome to the {@link DeferredAcknowledger}, which acknowledges on the
+ * receive thread with per-message acknowledgement. A message whose processing fails (and was
+ * not taken over by {@link RetryScheduler}) stays unacknowledged and is redelivered after the
+ * session is recovered.
+ */
+@Component
+public class MessagePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePipeline.class);
+
+    private static final int SPIN_TRIES = 100;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final class Slot {
+        MessageEnvelope envelope;
+        boolean logDetail;
+        EnvelopeHandler handler;
+        // Sequence last processed in this slot; volatile write publishes completion to the watermark
+        volatile long completed = -1L;
+    }
+
+    @Value("${app.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.pipeline.ring-size:1024}")
+    private int ringSize;
+
+    @Value("${app.pipeline.workers:4}")
+    private int workerCount;
+
+    @Value("${app.dispatch.lanes:0}")
+    private int laneCount;
+
+    private final DeferredAcknowledger acknowledger;
+    private final MeterRegistry meterRegistry;
+
+    // Next sequence to publish / claim / release; slots below released are free for reuse
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+
+    private Slot[] slots;
+    private int mask;
+    private Thread[] workers;
+    private volatile boolean running;
+
+    public MessagePipeline(DeferredAcknowledger acknowledger, MeterRegistry meterRegistry) {
+        this.acknowledger = acknowledger;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        if (laneCount > 0) {
+            throw new IllegalStateException("app.pipeline.enabled and app.dispatch.lanes are mutually exclusive");
+        }
+        if (ringSize <= 0 || workerCount <= 0) {
+            throw new IllegalArgumentException("app.pipeline.ring-size and app.pipeline.workers must be positive: "
+                + ringSize + ", " + workerCount);
+        }
+        int capacity = Integer.highestOneBit(ringSize - 1) << 1;
+        if (capacity <= 0) {
+            capacity = 1;
+        }
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+        running = true;
+
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::runWorker, "item-pipeline-" + i);
+            workers[i].start();
+        }
+
+        Gauge.builder("listener.pipeline.in-flight", this, MessagePipeline::inFlight)
+            .description("Messages published to the pipeline ring and not yet processed")
+            .register(meterRegistry);
+        logger.info("Pipeline mode enabled: ringSize={}, workers={}", capacity, workerCount);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long inFlight() {
+        return published.get() - released.get();
+    }
+
+    /**
+     * Publishes an envelope for processing. Called from the single receive thread; blocks
+     * while the ring is full.
+     */
+    public void publish(MessageEnvelope envelope, boolean logDetail, EnvelopeHandler handler) throws InterruptedException {
+        long sequence = published.get();
+        int idle = 0;
+        while (sequence - released.get() >= slots.length) {
+            if (!running) {
+                throw new IllegalStateException("Pipeline is stopped");
+            }
+            idle = idle(idle);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Interrupted while waiting for pipeline capacity");
+            }
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.envelope = envelope;
+        slot.logDetail = logDetail;
+        slot.handler = handler;
+        acknowledger.handedOff();
+        published.set(sequence + 1);
+    }
+
+    private void runWorker() {
+        int idle = 0;
+        while (running || claimed.get() < published.get()) {
+            long sequence = claimed.get();
+            if (sequence >= published.get()) {
+                idle = idle(idle);
+                continue;
+            }
+            if (!claimed.compareAndSet(sequence, sequence + 1)) {
+                continue;
+            }
+            idle = 0;
+            Slot slot = slots[(int) sequence & mask];
+            Message message = slot.envelope.message();
+            boolean processed = false;
+            try {
+                slot.handler.process(slot.envelope, slot.logDetail);
+                processed = true;
+            } catch (Exception e) {
+                logger.error("Error in pipeline processing, message left for redelivery: {}", e.getMessage());
+            }
+            slot.envelope = null;
+            slot.handler = null;
+            if (processed) {
+                acknowledger.processed(message);
+            } else {
+                acknowledger.failed();
+            }
+            slot.completed = sequence;
+            release();
+        }
+    }
+
+    /**
+     * Advances the watermark over contiguous completed slots. Any worker may do it: the one
+     * completing the slot at the watermark sees the slots completed above it.
+     */
+    private void release() {
+        long from;
+        while ((from = released.get()) < published.get() && slots[(int) from & mask].completed == from) {
+            released.compareAndSet(from, from + 1);
+        }
+    }
+
+    /** Spins briefly, then parks with a backoff doubling up to 1 ms so an idle pipeline stays cheap. */
+    private static int idle(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << Math.min(idle - SPIN_TRIES, 5)));
+        }
+        // Bounded: past the longest park the count no longer matters, and must not overflow
+        return Math.min(idle + 1, SPIN_TRIES + 5);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        // Workers finish what was already published before exiting
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (inFlight() > 0) {
+            logger.warn("Pipeline did not drain within 30s, {} messages left unprocessed", inFlight());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * OpenTelemetry wiring for the listener.
+ * <p>
+ * With {@code app.otel.sdk.enabled=true} (default) the app configures its own SDK: spans go
+ * through a bounded {@link BatchSpanProcessor} to OTLP, or to the log when no OTLP endpoint is
+ * set. The processor never blocks the listener thread: when the queue is full, spans are dropped
+ * and counted. Set it to false when running under the OpenTelemetry Java agent, which then
+ * provides {@link GlobalOpenTelemetry}.
+ */
+@Configuration
+public class OpenTelemetryConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenTelemetryConfig.class);
+
+    private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.otel.sdk.enabled", havingValue = "true", matchIfMissing = true)
+    static class SdkConfiguration {
+
+        @Bean
+        public SpanExportStats spanExportStats() {
+            return new SpanExportStats();
+        }
+
+        @Bean
+        public OpenTelemetrySdk openTelemetry(
+                SpanExportStats spanExportStats,
+                @Value("${spring.application.name:demo}") String serviceName,
+                @Value("${app.otel.exporter.otlp.endpoint:}") String otlpEndpoint,
+                @Value("${app.otel.bsp.max-queue-size:2048}") int maxQueueSize,
+                @Value("${app.otel.bsp.max-export-batch-size:512}") int maxExportBatchSize,
+                @Value("${app.otel.bsp.schedule-delay-ms:1000}") long scheduleDelayMs,
+                @Value("${app.otel.bsp.export-timeout-ms:5000}") long exportTimeoutMs) {
+            // Only used for the span processor self-metrics read by SpanExportStats
+            SdkMeterProvider meterProvider = SdkMeterProvider.builder()
+                .registerMetricReader(spanExportStats)
+                .build();
+
+            BatchSpanProcessor spanProcessor = BatchSpanProcessor.builder(spanExporter(otlpEndpoint, exportTimeoutMs))
+                .setMaxQueueSize(maxQueueSize)
+                .setMaxExportBatchSize(maxExportBatchSize)
+                .setScheduleDelay(Duration.ofMillis(scheduleDelayMs))
+                .setExporterTimeout(Duration.ofMillis(exportTimeoutMs))
+                .setMeterProvider(meterProvider)
+                .build();
+
+            SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                // Sampling is decided by TraceSamplingPolicy before spans are built
+                .setSampler(Sampler.alwaysOn())
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(SERVICE_NAME, serviceName))))
+                .addSpanProcessor(spanProcessor)
+                .build();
+
+            logger.info("OpenTelemetry SDK: queue={}, batch={}, delay={}ms, exportTimeout={}ms",
+                maxQueueSize, maxExportBatchSize, scheduleDelayMs, exportTimeoutMs);
+            // Closed by Spring on shutdown, which flushes pending spans
+            return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider)
+                .setMeterProvider(meterProvider)
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+        }
+
+        @Bean
+        public FunctionCounter exportedSpansCounter(MeterRegistry registry, SpanExportStats spanExportStats) {
+            return FunctionCounter.builder("otel.spans.exported", spanExportStats, SpanExportStats::exportedSpans)
+                .description("Spans handed to the span exporter")
+                .register(registry);
+        }
+
+        @Bean
+        public FunctionCounter droppedSpansCounter(MeterRegistry registry, SpanExportStats spanExportStats) {
+            return FunctionCounter.builder("otel.spans.dropped", spanExportStats, SpanExportStats::droppedSpans)
+                .description("Spans dropped because the export queue was full")
+                .register(registry);
+        }
+
+        private static SpanExporter spanExporter(String otlpEndpoint, long exportTimeoutMs) {
+            if (otlpEndpoint == null || otlpEndpoint.isBlank()) {
+                logger.info("No OTLP endpoint configured, exporting spans to the log");
+                return LoggingSpanExporter.create();
+            }
+            logger.info("Exporting spans over OTLP to {}", otlpEndpoint);
+            return OtlpGrpcSpanExporter.builder()
+                .setEndpoint(otlpEndpoint)
+                .setTimeout(Duration.ofMillis(exportTimeoutMs))
+                .build();
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.otel.sdk.enabled", havingValue = "false")
+    static class AgentConfiguration {
+
+        @Bean
+        public OpenTelemetry openTelemetry() {
+            logger.info("In-app OpenTelemetry SDK disabled, using GlobalOpenTelemetry");
+            return GlobalOpenTelemetry.get();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.Message;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes a per-message key onto N single-threaded lanes so that messages sharing a key are
+ * processed in arrival order while different keys run in parallel.
+ * <p>
+ * The key is read from the JMS property named by {@code app.dispatch.key-property}
+ * (JMSXGroupID by default). Messages without a key carry no ordering requirement and are
+ * spread round-robin. Each lane has a bounded queue; when it is full the listener thread
+ * blocks, which pushes back on the broker instead of buffering unboundedly.
+ * <p>
+ * A message is acknowledged through the {@link DeferredAcknowledger} only once its lane has
+ * processed it. When processing fails, the lane stays blocked: its later messages are skipped
+ * and left unacknowledged too, until the session is recovered and the broker redelivers them
+ * in their original order, so a key's messages never overtake a failed one. Failures on a
+ * lane are therefore not handed to {@link RetryScheduler}.
+ */
+@Component
+public class OrderedLaneDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderedLaneDispatcher.class);
+
+    @Value("${app.dispatch.lanes:0}")
+    private int laneCount;
+
+    @Value("${app.dispatch.lane-capacity:1000}")
+    private int laneCapacity;
+
+    @Value("${app.dispatch.key-property:JMSXGroupID}")
+    private String keyProperty;
+
+    private final DeferredAcknowledger acknowledger;
+    private final InFlightTracker inFlightTracker;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private Lane[] lanes;
+
+    public OrderedLaneDispatcher(DeferredAcknowledger acknowledger, InFlightTracker inFlightTracker) {
+        this.acknowledger = acknowledger;
+        this.inFlightTracker = inFlightTracker;
+    }
+
+    /** Work queued on a lane for one message. */
+    @FunctionalInterface
+    public interface LaneTask {
+
+        void run() throws Exception;
+    }
+
+    private static final class Lane {
+        final ThreadPoolExecutor executor;
+        // Recovery epoch in which a message of this lane failed; the lane skips messages until the next one
+        volatile long failedInEpoch = -1L;
+
+        Lane(ThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+    }
+
+    private static final class LaneThread extends Thread {
+
+        LaneThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (laneCount <= 0) {
+            logger.info("Ordered lane dispatch disabled, messages are processed on the listener thread");
+            return;
+        }
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "item-lane-" + i;
+            lanes[i] = new Lane(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(laneCapacity),
+                runnable -> new LaneThread(runnable, threadName),
+                OrderedLaneDispatcher::blockUntilQueued));
+        }
+        logger.info("Ordered lane dispatch enabled: lanes={}, capacity={}, key property={}",
+            laneCount, laneCapacity, keyProperty);
+    }
+
+    public boolean isEnabled() {
+        return lanes != null;
+    }
+
+    /** Whether the calling thread is a lane, whose failures are redelivered by the broker. */
+    public static boolean isLaneThread() {
+        return Thread.currentThread() instanceof LaneThread;
+    }
+
+    /**
+     * Queues the task on the lane owning the message key. Blocks while that lane is full. The
+     * message's in-flight count, begun by the caller, ends once the lane is done with it.
+     */
+    public void dispatch(Message message, LaneTask task) {
+        Lane lane = lanes[laneFor(message)];
+        acknowledger.handedOff();
+        try {
+            lane.executor.execute(() -> run(lane, message, task));
+        } catch (RuntimeException e) {
+            // Never queued: redelivered with the next recovery
+            acknowledger.failed();
+            throw e;
+        }
+    }
+
+    private void run(Lane lane, Message message, LaneTask task) {
+        try {
+            if (lane.failedInEpoch == acknowledger.recoveries()) {
+                // Behind a failed message of this lane: redelivered after it, in order
+                acknowledger.failed();
+                return;
+            }
+            task.run();
+            acknowledger.processed(message);
+        } catch (Exception e) {
+            logger.error("Error in lane processing, lane blocked until redelivery: {}", e.getMessage());
+            lane.failedInEpoch = acknowledger.recoveries();
+            acknowledger.failed();
+        } finally {
+            inFlightTracker.end(1);
+        }
+    }
+
+    private int laneFor(Message message) {
+        String key = null;
+        try {
+            key = message.getStringProperty(keyProperty);
+        } catch (Exception e) {
+            logger.warn("Error reading dispatch key property {}: {}", keyProperty, e.getMessage());
+        }
+        if (key == null) {
+            return Math.floorMod(roundRobin.getAndIncrement(), lanes.length);
+        }
+        return Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    private static void blockUntilQueued(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("Lane is shut down");
+        }
+        try {
+            lane.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for lane capacity", e);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (lanes == null) {
+            return;
+        }
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+        for (Lane lane : lanes) {
+            if (!lane.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Lane did not drain within 30s, {} tasks left", lane.executor.getQueue().size());
+            }
+        }
+    }
+}
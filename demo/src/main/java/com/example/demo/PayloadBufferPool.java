@@ -0,0 +1,56 @@
+package com.example.demo;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reusable buffers for {@code BytesMessage} payloads, so reading a multi-KB body does not
+ * allocate a new array per message.
+ * <p>
+ * Buffers are {@code app.payload.buffer-size} bytes and at most {@code app.payload.pool-size}
+ * are kept for reuse. Buffers are heap arrays because {@code BytesMessage.readBytes} can only
+ * fill a {@code byte[]}; a direct buffer would need a second copy. Larger payloads get a
+ * one-off buffer that is not pooled.
+ */
+@Component
+public class PayloadBufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> free;
+
+    public PayloadBufferPool(@Value("${app.payload.buffer-size:65536}") int bufferSize,
+                             @Value("${app.payload.pool-size:64}") int poolSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("app.payload.buffer-size must be positive: " + bufferSize);
+        }
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("app.payload.pool-size must be positive: " + poolSize);
+        }
+        this.bufferSize = bufferSize;
+        this.free = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /** A cleared buffer with {@code length} bytes of room, position 0 and limit {@code length}. */
+    public ByteBuffer acquire(int length) {
+        if (length > bufferSize) {
+            return ByteBuffer.allocate(length);
+        }
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear().limit(length);
+        return buffer;
+    }
+
+    /** Returns a buffer from {@link #acquire(int)}; it must not be used afterwards. */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == bufferSize) {
+            free.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo;
+
+import jakarta.jms.JMSException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Typed payload stage: binds the JSON body of a text or bytes message to
+ * {@code app.payload.type} with a streaming {@link JsonParser}, without building a tree model
+ * or an intermediate String for bytes payloads. JSON fields the type does not declare are
+ * skipped by the parser.
+ * <p>
+ * When the type implements {@link ReusablePayload} and {@code app.payload.reuse} is on, each
+ * thread decodes into one instance that is {@link ReusablePayload#reset() reset} and updated
+ * in place, with a reader bound to that instance once. A {@link StreamingPayload} reads its
+ * fields from the parser itself instead of going through data binding. A decoded payload is
+ * then only valid until the same thread decodes the next message and must not be kept beyond
+ * processing.
+ */
+@Component
+public class PayloadDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadDecoder.class);
+
+    private final Class<?> type;
+    private final ObjectReader reader;
+    private final ThreadLocal<ReusableTarget> reusable;
+
+    /** A thread's payload instance and the reader bound to update it, built once per thread. */
+    private record ReusableTarget(ReusablePayload payload, ObjectReader reader) {
+    }
+
+    public PayloadDecoder(@Value("${app.payload.type:}") String type,
+                          @Value("${app.payload.reuse:true}") boolean reuse,
+                          ObjectMapper objectMapper) {
+        if (type.isBlank()) {
+            this.type = null;
+            this.reader = null;
+            this.reusable = null;
+            return;
+        }
+        try {
+            this.type = ClassUtils.forName(type.trim(), PayloadDecoder.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalArgumentException("Invalid app.payload.type: " + type, e);
+        }
+        this.reader = objectMapper.readerFor(this.type)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        boolean reuseInstances = reuse && ReusablePayload.class.isAssignableFrom(this.type);
+        this.reusable = reuseInstances ? ThreadLocal.withInitial(() -> {
+                ReusablePayload payload = (ReusablePayload) BeanUtils.instantiateClass(this.type);
+                return new ReusableTarget(payload, reader.withValueToUpdate(payload));
+            }) : null;
+        logger.info("Payload decoding: type={}, reuse={}", this.type.getName(), reuseInstances);
+    }
+
+    public boolean isEnabled() {
+        return type != null;
+    }
+
+    /**
+     * Decoded body of a text or bytes message, {@code null} for other message types or an
+     * empty body.
+     */
+    public Object decode(MessageEnvelope envelope) throws JMSException, IOException {
+        if (envelope.isBytes()) {
+            ByteBuffer payload = envelope.payload();
+            if (!payload.hasRemaining()) {
+                return null;
+            }
+            try (JsonParser parser = reader.createParser(new ByteBufferBackedInputStream(payload))) {
+                return bind(parser);
+            }
+        }
+        String body = envelope.isText() ? envelope.body() : null;
+        if (body == null || body.isEmpty()) {
+            return null;
+        }
+        try (JsonParser parser = reader.createParser(body)) {
+            return bind(parser);
+        }
+    }
+
+    private Object bind(JsonParser parser) throws IOException {
+        if (reusable == null) {
+            return reader.readValue(parser);
+        }
+        ReusableTarget target = reusable.get();
+        target.payload().reset();
+        if (!(target.payload() instanceof StreamingPayload streaming)) {
+            return target.reader().readValue(parser);
+        }
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw MismatchedInputException.from(parser, type, "Expected a JSON object for " + type.getName()
+                + ", got " + token);
+        }
+        streaming.readFields(parser);
+        return streaming;
+    }
+}
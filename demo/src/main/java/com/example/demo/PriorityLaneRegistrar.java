@@ -0,0 +1,239 @@
+package com.example.demo;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jms.annotation.JmsListenerConfigurer;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.jms.config.JmsListenerEndpointRegistrar;
+import org.springframework.jms.config.SimpleJmsListenerEndpoint;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.adapter.ListenerExecutionFailedException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Gives each priority class of {@code app.queue.name} consumers of its own, so urgent traffic
+ * never queues behind bulk traffic on the same queue.
+ * <p>
+ * Lanes are configured in {@code app.priority.lanes} as {@code name:min-priority:threads},
+ * e.g. {@code urgent:7:2,bulk:0:6}. Each lane is a listener container on the queue whose
+ * message selector takes the priorities from its {@code min-priority} up to the next lane's,
+ * read from JMSPriority or from the numeric property named by {@code app.priority.property}.
+ * The lowest lane also takes everything below it and, with a property, every message whose
+ * property is missing or not numeric, so no message is left without a consumer; those are
+ * counted in {@code listener.priority.non-numeric}. The thread counts are the lanes'
+ * consumers: bulk messages can keep their consumers busy, and the broker keeps dispatching
+ * urgent messages to the urgent lane's consumers, with no receive thread or queue shared
+ * between lanes.
+ * <p>
+ * Lane consumers process on their own threads with CLIENT_ACKNOWLEDGE, so a message is only
+ * acknowledged after it has been processed and a failure is redelivered (or taken over by
+ * {@link RetryScheduler}) as on the {@code itemListener} container, which is not started in
+ * this mode.
+ */
+@Component
+public class PriorityLaneRegistrar implements JmsListenerConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityLaneRegistrar.class);
+
+    private final String laneSpec;
+    private final String priorityProperty;
+    private final String queueName;
+    private final boolean replaying;
+    private final boolean incompatibleMode;
+    private final ConnectionFactory connectionFactory;
+    private final ItemListener itemListener;
+    private final ListenerMetrics listenerMetrics;
+    private final MeterRegistry meterRegistry;
+
+    public PriorityLaneRegistrar(@Value("${app.priority.lanes:}") String laneSpec,
+                                 @Value("${app.priority.property:}") String priorityProperty,
+                                 @Value("${app.queue.name}") String queueName,
+                                 @Value("${app.dispatch.lanes:0}") int orderedLaneCount,
+                                 @Value("${app.pipeline.enabled:false}") boolean pipelineEnabled,
+                                 @Value("${app.batch.enabled:false}") boolean batchEnabled,
+                                 @Value("${app.shard.count:0}") int shardCount,
+                                 @Value("${app.replay.file:}") String replayFile,
+                                 ConnectionFactory connectionFactory, ItemListener itemListener,
+                                 ListenerMetrics listenerMetrics, MeterRegistry meterRegistry) {
+        this.laneSpec = laneSpec;
+        this.priorityProperty = priorityProperty.trim();
+        if (!this.priorityProperty.isEmpty() && !isIdentifier(this.priorityProperty)) {
+            throw new IllegalArgumentException("Invalid app.priority.property: " + priorityProperty
+                + ", expected a JMS property name");
+        }
+        this.queueName = queueName;
+        this.replaying = !replayFile.isBlank();
+        this.incompatibleMode = orderedLaneCount > 0 || pipelineEnabled || batchEnabled || shardCount > 0;
+        this.connectionFactory = connectionFactory;
+        this.itemListener = itemListener;
+        this.listenerMetrics = listenerMetrics;
+        this.meterRegistry = meterRegistry;
+    }
+
+    record Lane(String name, int minPriority, int threads) {
+    }
+
+    @Override
+    public void configureJmsListeners(JmsListenerEndpointRegistrar registrar) {
+        if (laneSpec.isBlank()) {
+            return;
+        }
+        if (incompatibleMode) {
+            throw new IllegalStateException("app.priority.lanes cannot be combined with app.dispatch.lanes, "
+                + "app.pipeline.enabled, app.batch.enabled or app.shard.count");
+        }
+        List<Lane> lanes = parse(laneSpec);
+        Counter nonNumeric = Counter.builder("listener.priority.non-numeric")
+            .description("Messages whose priority property is not numeric, taken by the lowest priority lane")
+            .register(meterRegistry);
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            String selector = selector(lanes, i);
+            boolean lowestWithProperty = i == lanes.size() - 1 && !priorityProperty.isEmpty();
+
+            Timer age = Timer.builder("listener.priority.age")
+                .description("Message age when its priority lane started processing it")
+                .tag("lane", lane.name())
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+
+            SimpleJmsListenerEndpoint endpoint = new SimpleJmsListenerEndpoint();
+            endpoint.setId("priority-" + lane.name());
+            endpoint.setDestination(queueName);
+            endpoint.setSelector(selector);
+            // All consumers stay open: the lane's capacity is reserved, not scaled down when idle
+            endpoint.setConcurrency(lane.threads() + "-" + lane.threads());
+            endpoint.setMessageListener(message -> {
+                try {
+                    recordAge(age, message);
+                    if (lowestWithProperty) {
+                        Object priority = message.getObjectProperty(priorityProperty);
+                        if (priority != null && !(priority instanceof Number)) {
+                            nonNumeric.increment();
+                            logger.debug("Message {} has non-numeric {}={}, processed on lane {}",
+                                message.getJMSMessageID(), priorityProperty, priority, lane.name());
+                        }
+                    }
+                    itemListener.onPriorityLaneMessage(message);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new ListenerExecutionFailedException("Priority lane " + lane.name() + " failed", e);
+                }
+            });
+            registrar.registerEndpoint(endpoint, containerFactory(lane));
+            logger.info("Priority lane registered: name={}, consumers={}, selector={}", lane.name(), lane.threads(),
+                (selector != null) ? selector : "<all>");
+        }
+    }
+
+    /**
+     * Selector of lane {@code index} in {@code lanes} (highest min-priority first): priorities
+     * from its min-priority (inclusive) up to the next higher lane's (exclusive). The lowest
+     * lane has no lower bound, and with a priority property it also takes every message the
+     * higher lanes' comparisons cannot match: a comparison with a missing or non-numeric
+     * property is unknown, which no selector accepts. {@code null} for a single lane.
+     */
+    String selector(List<Lane> lanes, int index) {
+        String priority = priorityProperty.isEmpty() ? "JMSPriority" : priorityProperty;
+        Integer below = (index == 0) ? null : lanes.get(index - 1).minPriority();
+        if (index < lanes.size() - 1) {
+            String min = priority + " >= " + lanes.get(index).minPriority();
+            return (below == null) ? min : min + " AND " + priority + " < " + below;
+        }
+        if (below == null) {
+            return null;
+        }
+        if (priorityProperty.isEmpty()) {
+            // JMSPriority is always set and numeric
+            return priority + " < " + below;
+        }
+        // Strings match LIKE '%' and booleans one of TRUE / FALSE; numbers only the comparison
+        return priority + " IS NULL OR " + priority + " < " + below + " OR " + priority + " LIKE '%'"
+            + " OR " + priority + " = TRUE OR " + priority + " = FALSE";
+    }
+
+    private static boolean isIdentifier(String name) {
+        if (!Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void recordAge(Timer age, Message message) throws Exception {
+        long timestamp = message.getJMSTimestamp();
+        if (timestamp > 0) {
+            age.record(Math.max(0, System.currentTimeMillis() - timestamp), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private DefaultJmsListenerContainerFactory containerFactory(Lane lane) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory() {
+            @Override
+            protected DefaultMessageListenerContainer createContainerInstance() {
+                // Lanes consume app.queue.name in place of the itemListener container
+                return new InstrumentedMessageListenerContainer(listenerMetrics.series(ListenerMetrics.ITEM_LISTENER));
+            }
+        };
+        factory.setConnectionFactory(connectionFactory);
+        // Acknowledged after the listener returns; a failure recovers the session for redelivery
+        factory.setSessionAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+        factory.setCacheLevel(DefaultMessageListenerContainer.CACHE_CONSUMER);
+        factory.setAutoStartup(!replaying);
+
+        // Bulkhead: the lane's consumers never run on more threads than it was given
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("priority-" + lane.name() + "-");
+        executor.setConcurrencyLimit(lane.threads());
+        factory.setTaskExecutor(executor);
+        return factory;
+    }
+
+    static List<Lane> parse(String spec) {
+        List<Lane> parsed = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        Set<Integer> minPriorities = new HashSet<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            try {
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("expected name:min-priority:threads");
+                }
+                Lane lane = new Lane(parts[0].trim(), Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[2].trim()));
+                if (lane.name().isEmpty() || lane.threads() < 1) {
+                    throw new IllegalArgumentException("lane needs a name and at least one thread");
+                }
+                if (!names.add(lane.name()) || !minPriorities.add(lane.minPriority())) {
+                    throw new IllegalArgumentException("duplicate lane name or min-priority");
+                }
+                parsed.add(lane);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid app.priority.lanes entry '" + entry.trim() + "': "
+                    + e.getMessage(), e);
+            }
+        }
+        parsed.sort(Comparator.comparingInt(Lane::minPriority).reversed());
+        return parsed;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo;
+
+import jakarta.jms.JMSException;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Optional cache of processing results for repeated payloads. Messages whose body,
+ * {@code app.result-cache.key-properties} and destination hash to a key processed within
+ * {@code app.result-cache.ttl-seconds} skip decoding and processing; they still get their
+ * message-processing span (marked as a cache hit) and are acknowledged as usual.
+ * <p>
+ * Keys are 64-bit {@link Hashing} values of the text or bytes body, so the payload itself is
+ * not retained. Entries are bounded by {@code max-size} and evicted by Caffeine's W-TinyLFU
+ * policy, which keeps the frequently repeated payloads over one-off ones. Hit, miss and
+ * eviction counts are published as the {@code cache.*} meters tagged
+ * {@code cache=listener.result-cache}. Batches are processed as one unit and bypass the cache.
+ * <p>
+ * The simulated processing produces no output, so the cached value only records that the
+ * payload was processed; a real handler would cache its result here.
+ */
+@Component
+public class ProcessingResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingResultCache.class);
+
+    static final long NO_KEY = 0L;
+
+    /** Cached value when processing has no result of its own. */
+    static final Object PROCESSED = Boolean.TRUE;
+
+    private final boolean enabled;
+    private final List<String> keyProperties;
+    private final Cache<Long, Object> cache;
+
+    public ProcessingResultCache(@Value("${app.result-cache.enabled:false}") boolean enabled,
+                                 @Value("${app.result-cache.max-size:100000}") long maxSize,
+                                 @Value("${app.result-cache.ttl-seconds:60}") long ttlSeconds,
+                                 @Value("${app.result-cache.key-properties:}") String keyProperties,
+                                 MeterRegistry registry) {
+        if (enabled && (maxSize <= 0 || ttlSeconds <= 0)) {
+            throw new IllegalArgumentException("app.result-cache.max-size and ttl-seconds must be positive: "
+                + maxSize + ", " + ttlSeconds);
+        }
+        this.enabled = enabled;
+        this.keyProperties = Arrays.stream(keyProperties.split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .toList();
+        this.cache = enabled ? Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build() : null;
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(registry, cache, "listener.result-cache");
+            logger.info("Processing result cache enabled: maxSize={}, ttlSeconds={}, keyProperties={}",
+                maxSize, ttlSeconds, this.keyProperties);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Hash of the body, the configured key properties and the destination, or {@link #NO_KEY} for messages
+     * without a text or bytes body, which are never cached.
+     */
+    public long key(MessageEnvelope envelope) throws JMSException {
+        long hash = Hashing.seed();
+        if (envelope.isBytes()) {
+            ByteBuffer payload = envelope.payload();
+            if (payload == null) {
+                return NO_KEY;
+            }
+            hash = Hashing.update(hash, payload);
+            hash = (hash ^ payload.remaining()) * 31;
+        } else if (envelope.isText() && envelope.body() != null) {
+            hash = Hashing.update(hash, envelope.body());
+            hash = (hash ^ envelope.body().length()) * 31;
+        } else {
+            return NO_KEY;
+        }
+        for (String name : keyProperties) {
+            hash = Hashing.update(hash, name);
+            hash = Hashing.update(hash, String.valueOf(envelope.property(name)));
+        }
+        // One cache serves every destination: the same payload on another one is processed on its own
+        hash = Hashing.update(hash, String.valueOf(envelope.destination()));
+        long key = Hashing.finish(hash);
+        return (key == NO_KEY) ? 1L : key;
+    }
+
+    /** Cached result for the key, {@code null} on a miss or for {@link #NO_KEY}. */
+    public Object get(long key) {
+        return (key == NO_KEY) ? null : cache.getIfPresent(key);
+    }
+
+    /** Records a successful processing result; called only after processing succeeded. */
+    public void put(long key, Object result) {
+        if (key != NO_KEY) {
+            cache.put(key, (result != null) ? result : PROCESSED);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.demo;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Takes over messages whose processing failed so the listener thread is not tied up by a
+ * poison message and the container does not redeliver it in a tight loop.
+ * <p>
+ * A failed message is parked in a scheduled queue and processed again on a retry thread after
+ * an exponential backoff ({@code initial-backoff-ms * multiplier^(attempt-1)}, capped at
+ * {@code max-backoff-ms}). After {@code max-attempts} it is copied to
+ * {@code app.retry.dead-letter-queue} with the failure recorded in {@code dlq*} properties.
+ * When {@code max-pending} retries are already parked, a new failure is not taken over: it
+ * goes back to the container, which rolls back and lets the broker redeliver it. Every consumer
+ * that hands failures here acknowledges only after the listener returns (transacted or client
+ * acknowledgement sessions); under AUTO_ACKNOWLEDGE such a failure would be lost.
+ * <p>
+ * The original message is acknowledged once the failure is taken over, so parked retries only
+ * live in memory and are never dropped while the process runs: a retry that cannot be
+ * dead-lettered is parked again for {@code max-backoff-ms}, and on shutdown parked retries are
+ * sent back to their source queue. The broker gives that copy a new JMSMessageID, so it carries
+ * its next attempt in {@code retryAttempt} and the original ID in {@code retryOriginalMessageId};
+ * {@link MessageEnvelope#of} reads them back, so {@code max-attempts} and the dedup key still
+ * apply. A crash or {@code kill -9} skips the shutdown: the retries parked at that moment (up to
+ * {@code max-pending}) are lost. Leave retry disabled where broker redelivery must cover that.
+ */
+@Component
+public class RetryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryScheduler.class);
+
+    /** Next attempt of a parked retry sent back to its source queue on shutdown. */
+    static final String ATTEMPT_PROPERTY = "retryAttempt";
+    /** JMSMessageID of the original message, on a parked retry sent back on shutdown. */
+    static final String ORIGINAL_MESSAGE_ID_PROPERTY = "retryOriginalMessageId";
+
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final double multiplier;
+    private final long maxBackoffMs;
+    private final int maxPending;
+    private final String deadLetterQueue;
+    private final JmsTemplate jmsTemplate;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Set<PendingRetry> pending = ConcurrentHashMap.newKeySet();
+    private final Counter scheduled;
+    private final Counter deadLettered;
+    private final Counter rejected;
+    private final Counter reparked;
+
+    public RetryScheduler(@Value("${app.retry.enabled:false}") boolean enabled,
+                          @Value("${app.retry.max-attempts:5}") int maxAttempts,
+                          @Value("${app.retry.initial-backoff-ms:100}") long initialBackoffMs,
+                          @Value("${app.retry.multiplier:2.0}") double multiplier,
+                          @Value("${app.retry.max-backoff-ms:30000}") long maxBackoffMs,
+                          @Value("${app.retry.max-pending:10000}") int maxPending,
+                          @Value("${app.retry.threads:2}") int threads,
+                          @Value("${app.retry.dead-letter-queue:${app.queue.name}.DLQ}") String deadLetterQueue,
+                          JmsTemplate jmsTemplate,
+                          MeterRegistry registry) {
+        if (enabled && (maxAttempts < 1 || initialBackoffMs < 0 || multiplier < 1.0 || maxPending < 0 || threads < 1)) {
+            throw new IllegalArgumentException("Invalid app.retry settings: max-attempts=" + maxAttempts
+                + ", initial-backoff-ms=" + initialBackoffMs + ", multiplier=" + multiplier
+                + ", max-pending=" + maxPending + ", threads=" + threads);
+        }
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.multiplier = multiplier;
+        this.maxBackoffMs = Math.max(initialBackoffMs, maxBackoffMs);
+        this.maxPending = maxPending;
+        this.deadLetterQueue = deadLetterQueue;
+        this.jmsTemplate = jmsTemplate;
+
+        this.scheduler = enabled ? newScheduler(threads) : null;
+        this.scheduled = Counter.builder("listener.retry")
+            .description("Failed messages taken over by the retry scheduler")
+            .tag("outcome", "scheduled")
+            .register(registry);
+        this.deadLettered = Counter.builder("listener.retry")
+            .description("Failed messages taken over by the retry scheduler")
+            .tag("outcome", "dead-lettered")
+            .register(registry);
+        this.rejected = Counter.builder("listener.retry")
+            .description("Failed messages taken over by the retry scheduler")
+            .tag("outcome", "rejected")
+            .register(registry);
+        this.reparked = Counter.builder("listener.retry")
+            .description("Failed messages taken over by the retry scheduler")
+            .tag("outcome", "reparked")
+            .register(registry);
+        Gauge.builder("listener.retry.pending", pending, Set::size)
+            .description("Failed messages waiting for their next attempt")
+            .register(registry);
+        if (enabled) {
+            logger.info("Retry enabled: maxAttempts={}, backoff={}ms x{} (max {}ms), maxPending={}, dlq={}",
+                maxAttempts, initialBackoffMs, multiplier, this.maxBackoffMs, maxPending, deadLetterQueue);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newScheduler(int threads) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads,
+            runnable -> new Thread(runnable, "item-retry-" + threadIndex.getAndIncrement()));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Takes over a failed processing attempt: schedules the next attempt, or dead-letters the
+     * message when attempts are exhausted. A first attempt is only taken over while fewer than
+     * {@code max-pending} retries are parked; later attempts already belong to the scheduler.
+     *
+     * @return {@code false} when retry is disabled, {@code max-pending} is reached or the
+     *         message could not be dead-lettered; the caller should then let the failure
+     *         propagate (to the container, or back to the retry that owns the message)
+     */
+    public boolean handleFailure(MessageEnvelope envelope, boolean logDetail, Exception failure, EnvelopeHandler handler) {
+        if (!enabled) {
+            return false;
+        }
+        if (envelope.attempt() >= maxAttempts) {
+            return deadLetter(envelope, failure);
+        }
+        if (envelope.attempt() == 1 && pending.size() >= maxPending) {
+            // Not acknowledged before the listener returns: the rollback or recover lets the broker redeliver it
+            rejected.increment();
+            logger.warn("Message {} failed with {} retries pending, leaving it to broker redelivery: {}",
+                envelope.messageId(), pending.size(), failure.getMessage());
+            return false;
+        }
+        long delayMs = backoffMs(envelope.attempt());
+        if (!park(new PendingRetry(envelope, logDetail, handler), delayMs)) {
+            // Shutting down: let the container redeliver instead
+            return false;
+        }
+        scheduled.increment();
+        logger.warn("Message {} failed on attempt {}/{}, retrying in {}ms: {}",
+            envelope.messageId(), envelope.attempt(), maxAttempts, delayMs, failure.getMessage());
+        return true;
+    }
+
+    private boolean park(PendingRetry retry, long delayMs) {
+        pending.add(retry);
+        try {
+            scheduler.schedule(retry, delayMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RuntimeException e) {
+            pending.remove(retry);
+            return false;
+        }
+    }
+
+    long backoffMs(int attempt) {
+        double backoff = initialBackoffMs * Math.pow(multiplier, attempt - 1);
+        return (long) Math.min(maxBackoffMs, backoff);
+    }
+
+    private boolean deadLetter(MessageEnvelope envelope, Exception failure) {
+        try {
+            sendCopy(jmsTemplate, deadLetterQueue, envelope, copy -> {
+                copy.setIntProperty("dlqAttempts", envelope.attempt());
+                copy.setStringProperty("dlqReason", String.valueOf(failure));
+                copy.setStringProperty("dlqOriginalMessageId", envelope.messageId());
+                copy.setStringProperty("dlqOriginalDestination", envelope.destination());
+            });
+            deadLettered.increment();
+            logger.error("Message {} failed after {} attempts, sent to {}: {}",
+                envelope.messageId(), envelope.attempt(), deadLetterQueue, failure.getMessage());
+            return true;
+        } catch (Exception e) {
+            logger.error("Could not dead-letter message {} to {}: {}", envelope.messageId(), deadLetterQueue, e.getMessage());
+            return false;
+        }
+    }
+
+    /** Adds details to a copy before it is sent. */
+    @FunctionalInterface
+    interface CopyCustomizer {
+        void customize(Message copy) throws JMSException;
+    }
+
+    /**
+     * Sends a {@linkplain #copyOf copy} of the message to a parking queue (dead-letter or
+     * stale side queue) with the original priority and delivery mode. The copy does not
+     * expire: it is kept for inspection, even when the original has expired meanwhile.
+     */
+    static void sendCopy(JmsTemplate jmsTemplate, String destinationName, MessageEnvelope envelope,
+                         CopyCustomizer customizer) {
+        jmsTemplate.execute(session -> {
+            Destination destination = jmsTemplate.getDestinationResolver()
+                .resolveDestinationName(session, destinationName, false);
+            send(session, destination, envelope, false, customizer);
+            return null;
+        }, false);
+    }
+
+    private static void send(Session session, Destination destination, MessageEnvelope envelope,
+                             boolean keepExpiration, CopyCustomizer customizer) throws JMSException {
+        Message copy = copyOf(session, envelope);
+        customizer.customize(copy);
+        Message original = envelope.message();
+        int deliveryMode = (original != null) ? original.getJMSDeliveryMode() : Message.DEFAULT_DELIVERY_MODE;
+        int priority = (original != null) ? original.getJMSPriority() : Message.DEFAULT_PRIORITY;
+        long timeToLive = keepExpiration ? timeToLive(envelope.expiration(), System.currentTimeMillis())
+            : Message.DEFAULT_TIME_TO_LIVE;
+        try (MessageProducer producer = session.createProducer(destination)) {
+            producer.send(copy, deliveryMode, priority, timeToLive);
+        }
+    }
+
+    /** Time to live that makes a copy sent at {@code now} expire with the original. */
+    static long timeToLive(long expiration, long now) {
+        if (expiration <= 0) {
+            return Message.DEFAULT_TIME_TO_LIVE;
+        }
+        // Already expired: the shortest non-zero time to live, since zero means never
+        return Math.max(1, expiration - now);
+    }
+
+    /**
+     * New message with the same body, application properties, JMSXGroupID, correlation ID
+     * and type. Received messages have read-only properties, so the failure details cannot
+     * be added to the original. Priority, delivery mode and expiration are producer settings
+     * and are applied when the copy is sent.
+     */
+    static Message copyOf(Session session, MessageEnvelope envelope) throws JMSException {
+        Message copy;
+        if (envelope.isText()) {
+            copy = session.createTextMessage(envelope.body());
+        } else if (envelope.isBytes()) {
+            BytesMessage bytes = session.createBytesMessage();
+            ByteBuffer payload = envelope.payload();
+            byte[] body = new byte[payload.remaining()];
+            payload.get(body);
+            bytes.writeBytes(body);
+            copy = bytes;
+        } else {
+            copy = session.createMessage();
+        }
+        for (Map.Entry<String, Object> property : envelope.properties().entrySet()) {
+            String name = property.getKey();
+            // JMSX and JMS_ vendor properties are set by the provider; the retry state is set by requeue only
+            if (!name.startsWith("JMSX") && !name.startsWith("JMS_")
+                    && !name.equals(ATTEMPT_PROPERTY) && !name.equals(ORIGINAL_MESSAGE_ID_PROPERTY)) {
+                copy.setObjectProperty(name, property.getValue());
+            }
+        }
+        // Except the group, which is the ordering key; providers do not always list it as a property
+        Object group = envelope.property("JMSXGroupID");
+        if (group != null) {
+            copy.setStringProperty("JMSXGroupID", group.toString());
+        }
+        Message original = envelope.message();
+        if (original != null) {
+            copy.setJMSCorrelationID(original.getJMSCorrelationID());
+            copy.setJMSType(original.getJMSType());
+        }
+        return copy;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        for (PendingRetry retry : pending) {
+            if (pending.remove(retry)) {
+                requeue(retry.envelope);
+            }
+        }
+    }
+
+    private void requeue(MessageEnvelope parked) {
+        // The parked envelope's payload was released when its attempt ended: read it again
+        MessageEnvelope envelope = MessageEnvelope.retryOf(parked);
+        try {
+            // Back on its source queue it must behave as the original: same priority and expiry
+            Destination source = envelope.message().getJMSDestination();
+            jmsTemplate.execute(session -> {
+                send(session, source, envelope, true, copy -> {
+                    // The copy gets a new JMSMessageID: keep counting attempts under the original one
+                    copy.setIntProperty(ATTEMPT_PROPERTY, envelope.attempt());
+                    copy.setStringProperty(ORIGINAL_MESSAGE_ID_PROPERTY, envelope.messageId());
+                });
+                return null;
+            }, false);
+            logger.info("Parked retry of message {} sent back to {} for attempt {}",
+                envelope.messageId(), envelope.destination(), envelope.attempt());
+        } catch (Exception e) {
+            logger.error("Could not requeue parked retry of message {}: {}", envelope.messageId(), e.getMessage());
+        } finally {
+            envelope.release();
+        }
+    }
+
+    private final class PendingRetry implements Runnable {
+
+        private final MessageEnvelope envelope;
+        private final boolean logDetail;
+        private final EnvelopeHandler handler;
+
+        PendingRetry(MessageEnvelope envelope, boolean logDetail, EnvelopeHandler handler) {
+            this.envelope = envelope;
+            this.logDetail = logDetail;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            if (!pending.remove(this)) {
+                return;
+            }
+            try {
+                // A failure of this attempt comes back through handleFailure with attempt + 1
+                handler.process(MessageEnvelope.retryOf(envelope), logDetail);
+            } catch (Exception e) {
+                // Neither parked for a next attempt nor dead-lettered: the message only lives here
+                if (!scheduler.isShutdown() && park(this, maxBackoffMs)) {
+                    reparked.increment();
+                    logger.error("Retry of message {} could not be completed, parked again for {}ms: {}",
+                        envelope.messageId(), maxBackoffMs, e.getMessage());
+                } else {
+                    // Interrupted by shutdown: send it back to its source
+                    requeue(envelope);
+                }
+            }
+        }
+    }
+}
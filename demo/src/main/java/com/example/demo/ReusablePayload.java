@@ -0,0 +1,11 @@
+package com.example.demo;
+
+/**
+ * Payload type that {@link PayloadDecoder} may decode into the same instance again and again.
+ * {@link #reset()} is called before each decode so fields missing from the next message do
+ * not keep the previous message's values.
+ */
+public interface ReusablePayload {
+
+    void reset();
+}
@@ -0,0 +1,219 @@
+package com.example.demo;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.Session;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sharded consumption mode for {@code app.queue.name}: {@code app.shard.count} separate
+ * connections, each with {@code app.shard.sessions} sessions whose asynchronous
+ * {@link MessageListener}s hand messages to {@link ItemListener#onMessage(Message)}. A JMS
+ * session delivers on one thread at a time and a connection funnels its sessions through one
+ * socket, so shards spread both the network I/O and the dispatch work over more cores than a
+ * single connection can.
+ * <p>
+ * Connections are opened on the target of a caching/single connection factory, which would
+ * otherwise hand every shard the same shared connection. Sessions use CLIENT_ACKNOWLEDGE: a
+ * message is acknowledged once {@code onMessage} returns, and a failure recovers the session on
+ * its own delivery thread so the provider redelivers the message instead of the listener
+ * throwing. A shard whose connection fails is reopened after a delay; the failed connection is
+ * compared before it is replaced, so repeated errors reopen the shard only once.
+ * Processed messages are counted per shard as {@code listener.shard.messages{shard}}.
+ * <p>
+ * When enabled, the per-message {@code @JmsListener} container is not started
+ * (see {@link SubscriberApplication#jmsListenerContainerFactory}).
+ */
+@Component
+public class ShardedConsumer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedConsumer.class);
+
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final ConnectionFactory connectionFactory;
+    private final ItemListener itemListener;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.shard.count:0}")
+    private int shardCount;
+
+    @Value("${app.shard.sessions:1}")
+    private int sessionsPerShard;
+
+    @Value("${app.queue.name}")
+    private String queueName;
+
+    @Value("${app.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${app.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
+    // Lanes acknowledge through the listener container's receive thread, which shards do not have
+    @Value("${app.dispatch.lanes:0}")
+    private int laneCount;
+
+    @Value("${app.replay.file:}")
+    private String replayFile;
+
+    // Guarded by this: shards are only opened while running
+    private volatile boolean running;
+    // Replaced by the reconnect thread when a shard's connection fails
+    private AtomicReferenceArray<Connection> connections;
+    private Counter[] processed;
+    private ScheduledExecutorService reconnector;
+
+    public ShardedConsumer(ConnectionFactory connectionFactory, ItemListener itemListener, MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.itemListener = itemListener;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return shardCount > 0;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!isEnabled() || !replayFile.isBlank()) {
+            return;
+        }
+        if (batchEnabled || pipelineEnabled || laneCount > 0) {
+            throw new IllegalStateException("app.shard.count cannot be combined with app.batch.enabled, "
+                + "app.pipeline.enabled or app.dispatch.lanes");
+        }
+        if (sessionsPerShard < 1) {
+            throw new IllegalArgumentException("app.shard.sessions must be positive: " + sessionsPerShard);
+        }
+        connections = new AtomicReferenceArray<>(shardCount);
+        processed = new Counter[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            processed[shard] = Counter.builder("listener.shard.messages")
+                .description("Messages processed per connection shard")
+                .tag("shard", String.valueOf(shard))
+                .register(meterRegistry);
+        }
+        reconnector = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "item-shard-reconnect"));
+        running = true;
+        for (int shard = 0; shard < shardCount; shard++) {
+            openShard(shard);
+        }
+        logger.info("Sharded consumer started: queue={}, shards={}, sessionsPerShard={}",
+            queueName, shardCount, sessionsPerShard);
+    }
+
+    private synchronized void openShard(int shard) {
+        // stop() holds the lock while closing: a reconnect either finishes first or sees it stopped
+        if (!running) {
+            return;
+        }
+        Connection connection = null;
+        try {
+            connection = targetConnectionFactory().createConnection();
+            // Published before the listener can fire, so a failure always finds the connection to replace
+            connections.set(shard, connection);
+            Connection opened = connection;
+            connection.setExceptionListener(e -> {
+                logger.error("Shard {} connection error: {}, reconnecting in {}ms", shard, e.getMessage(), RECONNECT_DELAY_MS);
+                reopenShard(shard, opened);
+            });
+            for (int i = 0; i < sessionsPerShard; i++) {
+                Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+                MessageConsumer consumer = session.createConsumer(session.createQueue(queueName));
+                consumer.setMessageListener(message -> onMessage(shard, session, message));
+            }
+            connection.start();
+        } catch (JMSException e) {
+            logger.error("Could not open shard {}: {}, retrying in {}ms", shard, e.getMessage(), RECONNECT_DELAY_MS);
+            reopenShard(shard, connection);
+        }
+    }
+
+    /** Closes the shard's connection and schedules a new one, unless it was already replaced. */
+    private void reopenShard(int shard, Connection failed) {
+        if (failed != null && !connections.compareAndSet(shard, failed, null)) {
+            return;
+        }
+        close(failed);
+        if (running) {
+            try {
+                reconnector.schedule(() -> openShard(shard), RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Stopped meanwhile
+            }
+        }
+    }
+
+    private ConnectionFactory targetConnectionFactory() {
+        // A caching factory would return its one shared connection to every shard
+        if (connectionFactory instanceof SingleConnectionFactory single && single.getTargetConnectionFactory() != null) {
+            return single.getTargetConnectionFactory();
+        }
+        return connectionFactory;
+    }
+
+    private void onMessage(int shard, Session session, Message message) {
+        try {
+            itemListener.onMessage(message);
+            message.acknowledge();
+            processed[shard].increment();
+        } catch (Exception e) {
+            // Throwing from an asynchronous listener is a client error; recover redelivers the message
+            logger.warn("Processing failed on shard {}, recovering session: {}", shard, e.getMessage());
+            try {
+                session.recover();
+            } catch (JMSException recoverFailure) {
+                logger.error("Could not recover shard {} session: {}", shard, recoverFailure.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        reconnector.shutdownNow();
+        // Closing waits for listeners still running on the shard's sessions
+        for (int shard = 0; shard < connections.length(); shard++) {
+            close(connections.getAndSet(shard, null));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            logger.warn("Error closing shard connection: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+
+/**
+ * Pull-only {@link MetricReader} that reads the {@code BatchSpanProcessor} self-metrics
+ * ({@code processedSpans}, split by the {@code dropped} attribute) so exported and dropped
+ * span counts can be published through Actuator.
+ */
+public class SpanExportStats implements MetricReader {
+
+    private static final String PROCESSED_SPANS = "processedSpans";
+    private static final AttributeKey<Boolean> DROPPED = AttributeKey.booleanKey("dropped");
+
+    private volatile CollectionRegistration registration = CollectionRegistration.noop();
+
+    /** Spans handed to the exporter. */
+    public long exportedSpans() {
+        return processedSpans(false);
+    }
+
+    /** Spans dropped because the export queue was full. */
+    public long droppedSpans() {
+        return processedSpans(true);
+    }
+
+    private long processedSpans(boolean dropped) {
+        long total = 0;
+        for (MetricData metric : registration.collectAllMetrics()) {
+            if (!PROCESSED_SPANS.equals(metric.getName())) {
+                continue;
+            }
+            for (LongPointData point : metric.getLongSumData().getPoints()) {
+                if (Boolean.valueOf(dropped).equals(point.getAttributes().get(DROPPED))) {
+                    total += point.getValue();
+                }
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void register(CollectionRegistration registration) {
+        this.registration = registration;
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+        return AggregationTemporality.CUMULATIVE;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.demo;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sheds messages that are too old to be worth full processing, so a backlog drains faster.
+ * A message is stale when it is older than {@code app.stale.max-age-ms} (by JMSTimestamp)
+ * or, with {@code app.stale.honor-expiration}, when its JMSExpiration has passed. The check
+ * runs before any span, decode or processing work. Stale messages are handled per
+ * {@code app.stale.action}:
+ * <ul>
+ *   <li>{@code drop}: acknowledged without processing</li>
+ *   <li>{@code side-queue}: copied to {@code app.stale.side-queue} and acknowledged; processed
+ *       normally if the send fails</li>
+ *   <li>{@code defer}: processed later on a small separate pool of {@code deferred-threads},
+ *       after the fresh traffic; processed normally when its {@code deferred-capacity} queue is
+ *       full</li>
+ * </ul>
+ * A deferred message is acknowledged once it is queued, so from then on the policy owns it
+ * the way {@link RetryScheduler} owns a parked retry: a deferred message whose processing fails
+ * (and is not taken over by {@link RetryScheduler}), or that is still queued when the pool shuts
+ * down, is copied to {@code app.stale.side-queue} rather than dropped. Deferring gives up queue
+ * order and is acknowledged before processing, so it cannot be combined with ordered lanes,
+ * pipeline mode or batch mode, which acknowledge a message only once it has been processed (a
+ * failed batch would redeliver a message the pool is already processing).
+ * <p>
+ * The deferred threads ask for {@link Thread#MIN_PRIORITY}, but that is only a hint: on Linux
+ * under the default scheduling policy it has no effect. Their share of the CPU is bounded by
+ * {@code deferred-threads} being small, not by priority.
+ */
+@Component
+public class StaleMessagePolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleMessagePolicy.class);
+
+    enum Action {
+        DROP("drop"), SIDE_QUEUE("side-queue"), DEFER("defer");
+
+        private final String id;
+
+        Action(String id) {
+            this.id = id;
+        }
+
+        static Action fromId(String id) {
+            for (Action action : values()) {
+                if (action.id.equals(id.trim().toLowerCase(Locale.ROOT))) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("Invalid app.stale.action: " + id + ", expected drop, side-queue or defer");
+        }
+    }
+
+    private final boolean enabled;
+    private final long maxAgeMs;
+    private final boolean honorExpiration;
+    private final Action action;
+    private final String sideQueue;
+    private final JmsTemplate jmsTemplate;
+    private final InFlightTracker inFlightTracker;
+    private final ThreadPoolExecutor deferred;
+    private final Counter dropped;
+    private final Counter sideQueued;
+    private final Counter deferredCount;
+    private final Counter lost;
+
+    public StaleMessagePolicy(@Value("${app.stale.enabled:false}") boolean enabled,
+                              @Value("${app.stale.max-age-ms:0}") long maxAgeMs,
+                              @Value("${app.stale.honor-expiration:true}") boolean honorExpiration,
+                              @Value("${app.stale.action:drop}") String action,
+                              @Value("${app.stale.side-queue:${app.queue.name}.STALE}") String sideQueue,
+                              @Value("${app.stale.deferred-threads:1}") int deferredThreads,
+                              @Value("${app.stale.deferred-capacity:1000}") int deferredCapacity,
+                              @Value("${app.dispatch.lanes:0}") int laneCount,
+                              @Value("${app.pipeline.enabled:false}") boolean pipelineEnabled,
+                              @Value("${app.batch.enabled:false}") boolean batchEnabled,
+                              JmsTemplate jmsTemplate,
+                              InFlightTracker inFlightTracker,
+                              MeterRegistry registry) {
+        this.action = Action.fromId(action);
+        if (enabled && (maxAgeMs < 0 || deferredThreads < 1 || deferredCapacity < 1)) {
+            throw new IllegalArgumentException("Invalid app.stale settings: max-age-ms=" + maxAgeMs
+                + ", deferred-threads=" + deferredThreads + ", deferred-capacity=" + deferredCapacity);
+        }
+        if (enabled && maxAgeMs == 0 && !honorExpiration) {
+            throw new IllegalArgumentException("app.stale.enabled needs max-age-ms or honor-expiration");
+        }
+        if (enabled && this.action == Action.DEFER && (laneCount > 0 || pipelineEnabled || batchEnabled)) {
+            throw new IllegalStateException("app.stale.action=defer cannot be combined with app.dispatch.lanes, "
+                + "app.pipeline.enabled or app.batch.enabled");
+        }
+        this.enabled = enabled;
+        this.maxAgeMs = maxAgeMs;
+        this.honorExpiration = honorExpiration;
+        this.sideQueue = sideQueue;
+        this.jmsTemplate = jmsTemplate;
+        this.inFlightTracker = inFlightTracker;
+        this.deferred = (enabled && this.action == Action.DEFER)
+            ? newDeferredExecutor(deferredThreads, deferredCapacity) : null;
+
+        this.dropped = shedCounter(registry, "dropped");
+        this.sideQueued = shedCounter(registry, "side-queued");
+        this.deferredCount = shedCounter(registry, "deferred");
+        this.lost = shedCounter(registry, "lost");
+        Gauge.builder("listener.stale.deferred.pending", this,
+                policy -> (policy.deferred != null) ? policy.deferred.getQueue().size() : 0)
+            .description("Stale messages waiting on the deferred threads")
+            .register(registry);
+        if (enabled) {
+            logger.info("Stale message policy enabled: maxAgeMs={}, honorExpiration={}, action={}",
+                maxAgeMs, honorExpiration, this.action.id);
+        }
+    }
+
+    private static Counter shedCounter(MeterRegistry registry, String action) {
+        return Counter.builder("listener.stale")
+            .description("Stale messages shed before processing")
+            .tag("action", action)
+            .register(registry);
+    }
+
+    private static ThreadPoolExecutor newDeferredExecutor(int threads, int capacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "item-stale-" + threadIndex.getAndIncrement());
+                // A hint only (ignored by Linux under SCHED_OTHER); the pool size is what bounds its share
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isStale(MessageEnvelope envelope) {
+        long now = System.currentTimeMillis();
+        if (honorExpiration && envelope.expiration() > 0 && now >= envelope.expiration()) {
+            return true;
+        }
+        return maxAgeMs > 0 && envelope.timestamp() > 0 && now - envelope.timestamp() > maxAgeMs;
+    }
+
+    /**
+     * Takes a stale message out of the normal processing path. {@code handler} processes it on
+     * the deferred pool in {@code defer} mode and must not check staleness again.
+     *
+     * @return {@code false} when the message should be processed normally after all
+     */
+    public boolean shed(MessageEnvelope envelope, boolean logDetail, EnvelopeHandler handler) {
+        switch (action) {
+            case DROP -> {
+                envelope.release();
+                dropped.increment();
+                log(envelope, logDetail, "dropped");
+                return true;
+            }
+            case SIDE_QUEUE -> {
+                if (envelope.isReplayed()) {
+                    // Nothing to route offline: count it as the broker would have seen it
+                    envelope.release();
+                    sideQueued.increment();
+                    return true;
+                }
+                try {
+                    RetryScheduler.sendCopy(jmsTemplate, sideQueue, envelope, copy -> { });
+                } catch (Exception e) {
+                    logger.warn("Could not route stale message {} to {}, processing it: {}",
+                        envelope.messageId(), sideQueue, e.getMessage());
+                    return false;
+                }
+                envelope.release();
+                sideQueued.increment();
+                log(envelope, logDetail, "sent to " + sideQueue);
+                return true;
+            }
+            default -> {
+                return defer(envelope, logDetail, handler);
+            }
+        }
+    }
+
+    private boolean defer(MessageEnvelope envelope, boolean logDetail, EnvelopeHandler handler) {
+        inFlightTracker.begin(1);
+        try {
+            deferred.execute(new DeferredMessage(envelope, logDetail, handler));
+        } catch (RejectedExecutionException e) {
+            // Not acknowledged yet: process it now rather than lose a message that is merely late
+            inFlightTracker.end(1);
+            log(envelope, logDetail, "processed now, deferred queue full");
+            return false;
+        }
+        deferredCount.increment();
+        log(envelope, logDetail, "deferred");
+        return true;
+    }
+
+    /**
+     * Copies a deferred message that was acknowledged but not processed to the side queue,
+     * with the reason in a {@code staleReason} property.
+     */
+    private void sideLine(MessageEnvelope deferredEnvelope, String reason) {
+        if (deferredEnvelope.isReplayed()) {
+            // Nothing to route offline, as with the side-queue action
+            logger.error("Deferred stale message {} not processed: {}", deferredEnvelope.messageId(), reason);
+            return;
+        }
+        // The payload may have been released when processing ended: read it again
+        MessageEnvelope envelope = MessageEnvelope.retryOf(deferredEnvelope);
+        try {
+            RetryScheduler.sendCopy(jmsTemplate, sideQueue, envelope, copy -> {
+                copy.setStringProperty("staleReason", reason);
+                copy.setStringProperty("staleOriginalMessageId", envelope.messageId());
+            });
+            sideQueued.increment();
+            logger.warn("Deferred stale message {} not processed, sent to {}: {}", envelope.messageId(), sideQueue, reason);
+        } catch (Exception e) {
+            lost.increment();
+            logger.error("Deferred stale message {} not processed and could not be sent to {} ({}): {}",
+                envelope.messageId(), sideQueue, e.getMessage(), reason);
+        } finally {
+            envelope.release();
+        }
+    }
+
+    private static void log(MessageEnvelope envelope, boolean logDetail, String outcome) {
+        if (logDetail) {
+            logger.debug("Stale message {} {} (age {}ms)", envelope.messageId(), outcome,
+                System.currentTimeMillis() - envelope.timestamp());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (deferred == null) {
+            return;
+        }
+        deferred.shutdown();
+        if (deferred.awaitTermination(10, TimeUnit.SECONDS)) {
+            return;
+        }
+        List<Runnable> queued = deferred.shutdownNow();
+        logger.warn("{} deferred stale messages not processed on shutdown", queued.size());
+        for (Runnable task : queued) {
+            DeferredMessage message = (DeferredMessage) task;
+            try {
+                sideLine(message.envelope, "not processed before shutdown");
+            } finally {
+                message.envelope.release();
+                inFlightTracker.end(1);
+            }
+        }
+    }
+
+    private final class DeferredMessage implements Runnable {
+
+        private final MessageEnvelope envelope;
+        private final boolean logDetail;
+        private final EnvelopeHandler handler;
+
+        DeferredMessage(MessageEnvelope envelope, boolean logDetail, EnvelopeHandler handler) {
+            this.envelope = envelope;
+            this.logDetail = logDetail;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // A failure here was neither retried nor dead-lettered by RetryScheduler
+                handler.process(envelope, logDetail);
+            } catch (Exception e) {
+                logger.error("Error in deferred processing of stale message {}: {}", envelope.messageId(), e.getMessage());
+                sideLine(envelope, "processing failed: " + e);
+            } finally {
+                inFlightTracker.end(1);
+            }
+        }
+    }
+}
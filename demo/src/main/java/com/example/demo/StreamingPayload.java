@@ -0,0 +1,19 @@
+package com.example.demo;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * {@link ReusablePayload} that binds its fields straight from the {@link JsonParser}, so
+ * {@link PayloadDecoder} skips Jackson data binding (deserialization context, bean property
+ * lookup) for it.
+ */
+public interface StreamingPayload extends ReusablePayload {
+
+    /**
+     * Reads the fields of the JSON object whose START_OBJECT is the parser's current token,
+     * up to and including the matching END_OBJECT. Called after {@link #reset()}.
+     */
+    void readFields(JsonParser parser) throws IOException;
+}
@@ -3,20 +3,127 @@
  *  0.0.1 - Initial working one
  *  0.0.2 - Added OTel custom instrumentation
  *  0.0.2.1 - Added attributes and system output for subscribed content
+ *  0.0.3 - Added configurable listener container factory (concurrency, virtual threads)
+ *  0.0.4 - Per-message listener container is not started in batch mode
+ *  0.0.5 - Listener containers time acknowledgements (InstrumentedMessageListenerContainer)
+ *  0.0.6 - Enabled scheduling for the adaptive concurrency controller
+ *  0.0.7 - Pipeline mode: single CLIENT_ACKNOWLEDGE consumer, acknowledged by MessagePipeline
+ *  0.0.8 - Listener container is not started when replaying a journal (JournalReplayer)
+ *  0.0.9 - Listener container is not started in sharded mode (ShardedConsumer)
+ *  0.1.0 - Pipeline mode uses per-message acknowledgement, settled on the receive thread (DeferredAcknowledger)
+ *  0.1.1 - Ordered lanes run on a single per-message acknowledgement consumer as well
+ *  0.1.2 - Listener container is not started with priority lanes (PriorityLaneRegistrar)
+ *  0.1.3 - Factory configured by Spring Boot first (transacted sessions, spring.jms.listener.*)
  */
 
 package com.example.demo;
 
+import jakarta.jms.ConnectionFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.jms.annotation.EnableJms;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.solacesystems.jms.SupportedProperty;
 
 @SpringBootApplication
 @EnableJms
+@EnableScheduling
 public class SubscriberApplication {
 
+	private static final Logger logger = LoggerFactory.getLogger(SubscriberApplication.class);
+
 	public static void main(String[] args) {
 		SpringApplication.run(SubscriberApplication.class, args);
 	}
 
+	/**
+	 * Listener container factory used by {@link ItemListener}. Starts from the Spring Boot
+	 * defaults (transacted sessions without a JTA manager, so a message is only acknowledged once
+	 * the listener returns, and {@code spring.jms.listener.*}) and replaces the single consumer on
+	 * a platform thread with a configurable consumer pool.
+	 */
+	@Bean
+	public DefaultJmsListenerContainerFactory jmsListenerContainerFactory(
+			DefaultJmsListenerContainerFactoryConfigurer configurer,
+			ConnectionFactory connectionFactory,
+			ListenerMetrics listenerMetrics,
+			DeferredAcknowledger deferredAcknowledger,
+			InFlightTracker inFlightTracker,
+			@Value("${app.listener.concurrency.min:1}") int minConcurrency,
+			@Value("${app.listener.concurrency.max:1}") int maxConcurrency,
+			@Value("${app.listener.max-messages-per-task:-1}") int maxMessagesPerTask,
+			@Value("${app.listener.virtual-threads:false}") boolean virtualThreads,
+			@Value("${app.batch.enabled:false}") boolean batchEnabled,
+			@Value("${app.pipeline.enabled:false}") boolean pipelineEnabled,
+			@Value("${app.dispatch.lanes:0}") int laneCount,
+			@Value("${app.replay.file:}") String replayFile,
+			@Value("${app.shard.count:0}") int shardCount,
+			@Value("${app.priority.lanes:}") String priorityLanes,
+			@Value("${app.listener.individual-ack-mode:" + SupportedProperty.SOL_CLIENT_ACKNOWLEDGE + "}") int individualAckMode) {
+		if (minConcurrency < 1 || maxConcurrency < minConcurrency) {
+			throw new IllegalArgumentException("Invalid listener concurrency: min=" + minConcurrency
+				+ ", max=" + maxConcurrency);
+		}
+
+		DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory() {
+			@Override
+			protected DefaultMessageListenerContainer createContainerInstance() {
+				return new InstrumentedMessageListenerContainer(listenerMetrics.series(ListenerMetrics.ITEM_LISTENER),
+					deferredAcknowledger, inFlightTracker);
+			}
+		};
+		configurer.configure(factory, connectionFactory);
+		if (pipelineEnabled || laneCount > 0) {
+			// One session feeds the pipeline ring or the lanes, which provide the parallelism (and for
+			// lanes keeps the queue order). Acknowledging per message keeps an acknowledgement from
+			// covering messages still being processed
+			if (maxConcurrency > 1) {
+				logger.warn("{} uses a single consumer, ignoring concurrency {}-{}",
+					pipelineEnabled ? "Pipeline mode" : "Ordered lane dispatch", minConcurrency, maxConcurrency);
+			}
+			factory.setConcurrency("1");
+			// A transacted session would ignore the acknowledgement mode and commit everything at once
+			factory.setSessionTransacted(false);
+			factory.setSessionAcknowledgeMode(individualAckMode);
+		} else {
+			factory.setConcurrency(minConcurrency + "-" + maxConcurrency);
+		}
+		// Keep the consumer (and its flow) open between receives so the broker can keep
+		// the prefetch window full instead of re-binding on every poll
+		factory.setCacheLevel(DefaultMessageListenerContainer.CACHE_CONSUMER);
+		// BatchMessageConsumer, ShardedConsumer or the priority lane consumers own the queue in their
+		// modes; a journal replay needs no broker. Otherwise spring.jms.listener.auto-startup applies
+		if (batchEnabled || shardCount > 0 || !priorityLanes.isBlank() || !replayFile.isBlank()) {
+			factory.setAutoStartup(false);
+		}
+		if (maxMessagesPerTask > 0) {
+			factory.setMaxMessagesPerTask(maxMessagesPerTask);
+		}
+
+		if (virtualThreads) {
+			if (Runtime.version().feature() >= 21) {
+				factory.setTaskExecutor(new VirtualThreadTaskExecutor("item-listener-"));
+			} else {
+				logger.warn("Virtual threads requested but running on Java {}, using platform threads",
+					Runtime.version().feature());
+				factory.setTaskExecutor(new SimpleAsyncTaskExecutor("item-listener-"));
+			}
+		}
+
+		logger.info("Listener container factory: concurrency={}-{}, maxMessagesPerTask={}, virtualThreads={}, pipeline={}",
+			minConcurrency, maxConcurrency, maxMessagesPerTask, virtualThreads, pipelineEnabled);
+		return factory;
+	}
+
 }
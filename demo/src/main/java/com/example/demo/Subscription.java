@@ -0,0 +1,47 @@
+package com.example.demo;
+
+/**
+ * A consumed destination and the policies applied to its messages. The {@code itemListener}
+ * queue ({@code app.queue.name}) is the default subscription, using the global trace source
+ * and logging policy; more are declared under {@code app.subscriptions} and registered by
+ * {@link SubscriptionRegistrar}. Stage and age timers are recorded in the subscription's own
+ * {@link ListenerMetrics.Series}, tagged with its id.
+ */
+public final class Subscription {
+
+    private final String id;
+    private final String destination;
+    private final TraceContextSourceHolder traceContextSource;
+    private final MessageLoggingPolicy loggingPolicy;
+    private final ListenerMetrics.Series metrics;
+
+    public Subscription(String id, String destination, TraceContextSourceHolder traceContextSource,
+                        MessageLoggingPolicy loggingPolicy, ListenerMetrics metrics) {
+        this.id = id;
+        this.destination = destination;
+        this.traceContextSource = traceContextSource;
+        this.loggingPolicy = loggingPolicy;
+        this.metrics = metrics.series(id);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /** Destination name, used as {@code messaging.destination.name} on spans. */
+    public String destination() {
+        return destination;
+    }
+
+    public TraceContextSourceHolder traceContextSource() {
+        return traceContextSource;
+    }
+
+    public MessageLoggingPolicy loggingPolicy() {
+        return loggingPolicy;
+    }
+
+    public ListenerMetrics.Series metrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.demo;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Session;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jms.annotation.JmsListenerConfigurer;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.jms.config.JmsListenerEndpointRegistrar;
+import org.springframework.jms.config.SimpleJmsListenerEndpoint;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.adapter.ListenerExecutionFailedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers one listener container per entry of {@code app.subscriptions}, in addition to
+ * the {@code itemListener} container on {@code app.queue.name}:
+ * <pre>
+ * app.subscriptions[0].id=orders
+ * app.subscriptions[0].destination=orders
+ * app.subscriptions[0].concurrency=1-4
+ * app.subscriptions[1].id=prices
+ * app.subscriptions[1].destination=prices/updates
+ * app.subscriptions[1].topic=true
+ * app.subscriptions[1].subscription-name=demo-prices
+ * app.subscriptions[1].trace-context-source=jms-properties
+ * app.subscriptions[1].log-sample-rate=0
+ * </pre>
+ * Each container has its own thread pool limited to its max concurrency (a bulkhead), so a
+ * slow destination cannot take threads from the others. Trace source and log sampling
+ * default to the global {@code trace.context.source} and {@code app.logging.sample-rate}; a
+ * subscription's trace source is switched on its own through {@link TraceContextSourceEndpoint}.
+ * Topics with a {@code subscription-name} use a shared durable subscription; without one
+ * they are consumed by a single non-durable subscriber.
+ * <p>
+ * Sessions use CLIENT_ACKNOWLEDGE, so a message is only acknowledged after it has been
+ * processed and a failure is redelivered (or taken over by {@link RetryScheduler}).
+ */
+@Component
+public class SubscriptionRegistrar implements JmsListenerConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionRegistrar.class);
+
+    // app.queue.name and the work processed off the containers
+    private static final Set<String> RESERVED_IDS = Set.of(ListenerMetrics.ITEM_LISTENER, ListenerMetrics.RETRY,
+        ListenerMetrics.DEFERRED, ListenerMetrics.REPLAY);
+
+    private final List<Definition> definitions;
+    private final ConnectionFactory connectionFactory;
+    private final ItemListener itemListener;
+    private final ListenerMetrics listenerMetrics;
+    private final String defaultTraceContextSource;
+    private final double defaultLogSampleRate;
+    private final int bodyMaxChars;
+    private final String propertyAllowlist;
+    private final boolean replaying;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    public SubscriptionRegistrar(Environment environment, ConnectionFactory connectionFactory, ItemListener itemListener,
+                                 ListenerMetrics listenerMetrics,
+                                 @Value("${trace.context.source:jms-properties}") String defaultTraceContextSource,
+                                 @Value("${app.logging.sample-rate:1.0}") double defaultLogSampleRate,
+                                 @Value("${app.logging.body-max-chars:256}") int bodyMaxChars,
+                                 @Value("${app.logging.property-allowlist:*}") String propertyAllowlist,
+                                 @Value("${app.replay.file:}") String replayFile) {
+        this.definitions = Binder.get(environment)
+            .bind("app.subscriptions", Bindable.listOf(Definition.class))
+            .orElse(List.of());
+        this.connectionFactory = connectionFactory;
+        this.itemListener = itemListener;
+        this.listenerMetrics = listenerMetrics;
+        this.defaultTraceContextSource = defaultTraceContextSource;
+        this.defaultLogSampleRate = defaultLogSampleRate;
+        this.bodyMaxChars = bodyMaxChars;
+        this.propertyAllowlist = propertyAllowlist;
+        this.replaying = !replayFile.isBlank();
+    }
+
+    @Override
+    public void configureJmsListeners(JmsListenerEndpointRegistrar registrar) {
+        Set<String> ids = new HashSet<>();
+        for (Definition definition : definitions) {
+            definition.validate();
+            if (RESERVED_IDS.contains(definition.getId())) {
+                // Also the container tag of the listener metrics, which must stay distinct
+                throw new IllegalArgumentException("app.subscriptions id '" + definition.getId() + "' is reserved, "
+                    + "ids must not be one of " + RESERVED_IDS);
+            }
+            if (!ids.add(definition.getId())) {
+                throw new IllegalArgumentException("Duplicate app.subscriptions id: " + definition.getId());
+            }
+
+            Subscription subscription = new Subscription(definition.getId(), definition.getDestination(),
+                new TraceContextSourceHolder((definition.getTraceContextSource() != null)
+                    ? definition.getTraceContextSource() : defaultTraceContextSource),
+                new MessageLoggingPolicy((definition.getLogSampleRate() != null)
+                    ? definition.getLogSampleRate() : defaultLogSampleRate, bodyMaxChars, propertyAllowlist),
+                listenerMetrics);
+            subscriptions.put(subscription.id(), subscription);
+
+            SimpleJmsListenerEndpoint endpoint = new SimpleJmsListenerEndpoint();
+            endpoint.setId(definition.getId());
+            endpoint.setDestination(definition.getDestination());
+            endpoint.setConcurrency(definition.getConcurrency());
+            if (definition.isTopic() && definition.getSubscriptionName() != null) {
+                endpoint.setSubscription(definition.getSubscriptionName());
+            }
+            endpoint.setMessageListener(message -> {
+                try {
+                    itemListener.onSubscriptionMessage(message, subscription);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new ListenerExecutionFailedException("Subscription " + subscription.id() + " failed", e);
+                }
+            });
+            registrar.registerEndpoint(endpoint, containerFactory(definition, subscription));
+            logger.info("Subscription registered: id={}, destination={}, topic={}, subscriptionName={}, concurrency={}",
+                definition.getId(), definition.getDestination(), definition.isTopic(), definition.getSubscriptionName(),
+                definition.getConcurrency());
+        }
+    }
+
+    /** Registered subscription with that id, {@code null} when there is none. */
+    public Subscription subscription(String id) {
+        return subscriptions.get(id);
+    }
+
+    public Set<String> subscriptionIds() {
+        return Set.copyOf(subscriptions.keySet());
+    }
+
+    private DefaultJmsListenerContainerFactory containerFactory(Definition definition, Subscription subscription) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory() {
+            @Override
+            protected DefaultMessageListenerContainer createContainerInstance() {
+                return new InstrumentedMessageListenerContainer(subscription.metrics());
+            }
+        };
+        factory.setConnectionFactory(connectionFactory);
+        // Acknowledged after the listener returns; a failure recovers the session for redelivery
+        factory.setSessionAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+        factory.setPubSubDomain(definition.isTopic());
+        if (definition.isTopic() && definition.getSubscriptionName() != null) {
+            factory.setSubscriptionDurable(true);
+            factory.setSubscriptionShared(true);
+        }
+        factory.setCacheLevel(DefaultMessageListenerContainer.CACHE_CONSUMER);
+        factory.setAutoStartup(!replaying);
+
+        // Bulkhead: this subscription's consumers never run on more threads than its max concurrency
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("sub-" + definition.getId() + "-");
+        executor.setConcurrencyLimit(definition.maxConcurrency());
+        factory.setTaskExecutor(executor);
+        return factory;
+    }
+
+    /** One {@code app.subscriptions[n]} entry. */
+    public static class Definition {
+
+        private String id;
+        private String destination;
+        private boolean topic;
+        private String subscriptionName;
+        private String concurrency = "1";
+        private String traceContextSource;
+        private Double logSampleRate;
+
+        void validate() {
+            if (id == null || id.isBlank() || destination == null || destination.isBlank()) {
+                throw new IllegalArgumentException("app.subscriptions entries need an id and a destination: " + id);
+            }
+            int min;
+            int max;
+            try {
+                int dash = concurrency.indexOf('-');
+                min = Integer.parseInt(concurrency.substring(0, (dash > 0) ? dash : concurrency.length()).trim());
+                max = maxConcurrency();
+            } catch (RuntimeException e) {
+                // Null, empty or non-numeric bounds
+                throw new IllegalArgumentException("Invalid concurrency for subscription " + id + ": " + concurrency
+                    + ", expected \"n\" or \"min-max\"", e);
+            }
+            if (min < 1 || max < min) {
+                throw new IllegalArgumentException("Invalid concurrency for subscription " + id + ": " + concurrency);
+            }
+            if (topic && subscriptionName == null && max > 1) {
+                // Each non-shared topic consumer would receive every message
+                throw new IllegalArgumentException("Topic subscription " + id
+                    + " needs a subscription-name (shared subscription) for concurrency above 1");
+            }
+        }
+
+        int maxConcurrency() {
+            int dash = concurrency.indexOf('-');
+            return Integer.parseInt(concurrency.substring(dash + 1).trim());
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public void setDestination(String destination) {
+            this.destination = destination;
+        }
+
+        public boolean isTopic() {
+            return topic;
+        }
+
+        public void setTopic(boolean topic) {
+            this.topic = topic;
+        }
+
+        public String getSubscriptionName() {
+            return subscriptionName;
+        }
+
+        public void setSubscriptionName(String subscriptionName) {
+            this.subscriptionName = subscriptionName;
+        }
+
+        public String getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(String concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public String getTraceContextSource() {
+            return traceContextSource;
+        }
+
+        public void setTraceContextSource(String traceContextSource) {
+            this.traceContextSource = traceContextSource;
+        }
+
+        public Double getLogSampleRate() {
+            return logSampleRate;
+        }
+
+        public void setLogSampleRate(Double logSampleRate) {
+            this.logSampleRate = logSampleRate;
+        }
+    }
+}
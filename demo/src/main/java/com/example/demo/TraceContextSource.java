@@ -0,0 +1,115 @@
+package com.example.demo;
+
+import jakarta.jms.Message;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Solace OTel helper:
+import com.solace.opentelemetry.javaagent.jms.SolaceJmsW3CTextMapGetter;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+
+/**
+ * Where the upstream trace context of a message is read from. Resolved once from
+ * {@code trace.context.source} (see {@link TraceContextSourceHolder}) instead of being
+ * re-parsed for every message.
+ */
+public enum TraceContextSource {
+
+    /** Follow the publisher trace carried in JMS properties. */
+    JMS_PROPERTIES("jms-properties") {
+        @Override
+        public Context extract(TextMapPropagator propagator, Message message) {
+            return extractFromJmsProperties(propagator, message);
+        }
+    },
+
+    /** Follow the Solace broker trace carried in message headers. */
+    HEADERS("headers") {
+        @Override
+        public Context extract(TextMapPropagator propagator, Message message) {
+            return extractFromHeaders(propagator, message);
+        }
+    },
+
+    /** Prefer the Solace headers, fall back to JMS properties when they carry no valid context. */
+    HEADERS_THEN_PROPERTIES("headers-then-properties") {
+        @Override
+        public Context extract(TextMapPropagator propagator, Message message) {
+            Context extracted = extractFromHeaders(propagator, message);
+            if (Span.fromContext(extracted).getSpanContext().isValid()) {
+                return extracted;
+            }
+            logger.debug("No valid context in headers, falling back to JMS properties");
+            return extractFromJmsProperties(propagator, message);
+        }
+    },
+
+    /** Skip extraction entirely; spans start a new trace. */
+    NONE("none") {
+        @Override
+        public Context extract(TextMapPropagator propagator, Message message) {
+            return Context.current();
+        }
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceContextSource.class);
+
+    private static final SolaceJmsW3CTextMapGetter HEADERS_GETTER =
+        new SolaceJmsW3CTextMapGetter();
+
+    private final String id;
+
+    TraceContextSource(String id) {
+        this.id = id;
+    }
+
+    /** Configuration value, as used in {@code trace.context.source}. */
+    public String id() {
+        return id;
+    }
+
+    public abstract Context extract(TextMapPropagator propagator, Message message);
+
+    public static List<String> ids() {
+        return Arrays.stream(values()).map(TraceContextSource::id).toList();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not one of {@link #ids()}
+     */
+    public static TraceContextSource fromId(String id) {
+        for (TraceContextSource source : values()) {
+            if (source.id.equalsIgnoreCase(id != null ? id.trim() : null)) {
+                return source;
+            }
+        }
+        throw new IllegalArgumentException("Invalid trace context source: " + id + ", expected one of " + ids());
+    }
+
+    private static Context extractFromJmsProperties(TextMapPropagator propagator, Message message) {
+        try {
+            // The W3C propagator parses traceparent/tracestate directly from the message properties
+            return propagator.extract(Context.current(), message, JmsPropertiesTextMapGetter.INSTANCE);
+        } catch (Exception e) {
+            logger.error("Error extracting trace context from JMS properties: {}", e.getMessage());
+            return Context.current();
+        }
+    }
+
+    private static Context extractFromHeaders(TextMapPropagator propagator, Message message) {
+        try {
+            // Extract upstream context using the Solace getter
+            return propagator.extract(Context.current(), message, HEADERS_GETTER);
+        } catch (Exception e) {
+            logger.error("Error extracting trace context from headers: {}", e.getMessage());
+            return Context.current();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint to inspect and switch the trace context source without a restart:
+ * <pre>
+ * GET  /actuator/tracesource
+ * POST /actuator/tracesource {"source": "headers-then-properties"}
+ * </pre>
+ * Without {@code subscription} it applies to the global source, used by {@code itemListener}.
+ * Each {@code app.subscriptions} entry has its own source, selected with
+ * {@code ?subscription=<id>} (or a {@code subscription} field in the POST body).
+ */
+@Component
+@Endpoint(id = "tracesource")
+public class TraceContextSourceEndpoint {
+
+    private final TraceContextSourceHolder holder;
+    private final SubscriptionRegistrar subscriptionRegistrar;
+
+    public TraceContextSourceEndpoint(TraceContextSourceHolder holder, SubscriptionRegistrar subscriptionRegistrar) {
+        this.holder = holder;
+        this.subscriptionRegistrar = subscriptionRegistrar;
+    }
+
+    @ReadOperation
+    public Map<String, Object> source(@Nullable String subscription) {
+        return Map.of("source", holder(subscription).get().id(), "options", TraceContextSource.ids(),
+            "subscriptions", subscriptionRegistrar.subscriptionIds());
+    }
+
+    @WriteOperation
+    public Map<String, Object> switchSource(String source, @Nullable String subscription) {
+        holder(subscription).set(source);
+        return source(subscription);
+    }
+
+    private TraceContextSourceHolder holder(String subscription) {
+        if (subscription == null || subscription.isBlank()) {
+            return holder;
+        }
+        Subscription registered = subscriptionRegistrar.subscription(subscription);
+        if (registered == null) {
+            throw new InvalidEndpointRequestException("Unknown subscription: " + subscription, "Unknown subscription");
+        }
+        return registered.traceContextSource();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the active {@link TraceContextSource}. The configured value is validated at startup,
+ * so an invalid {@code trace.context.source} fails the boot instead of warning per message.
+ * The source can be switched at runtime through {@link TraceContextSourceEndpoint}.
+ */
+@Component
+public class TraceContextSourceHolder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceContextSourceHolder.class);
+
+    private volatile TraceContextSource current;
+
+    public TraceContextSourceHolder(@Value("${trace.context.source:jms-properties}") String configuredSource) {
+        this.current = TraceContextSource.fromId(configuredSource);
+        logger.info("Trace context source: {}", current.id());
+    }
+
+    public TraceContextSource get() {
+        return current;
+    }
+
+    public TraceContextSource set(String sourceId) {
+        TraceContextSource previous = current;
+        current = TraceContextSource.fromId(sourceId);
+        logger.info("Trace context source switched: {} -> {}", previous.id(), current.id());
+        return current;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.opentelemetry.api.trace.SpanContext;
+
+/**
+ * Decides, before any span is built, whether a message is traced. Unsampled messages skip
+ * span creation, attribute building and span logging, so tracing cost follows the sampled
+ * volume rather than the total volume.
+ * <ul>
+ *   <li>{@code parent-based} - follow the upstream sampled flag; messages without a valid
+ *       parent are sampled at {@code app.tracing.sampler.ratio}</li>
+ *   <li>{@code ratio} - sample {@code app.tracing.sampler.ratio} of all messages</li>
+ *   <li>{@code rate-limited} - at most {@code app.tracing.sampler.spans-per-second} traced
+ *       messages per second</li>
+ * </ul>
+ */
+@Component
+public class TraceSamplingPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceSamplingPolicy.class);
+
+    enum Mode {
+        PARENT_BASED, RATIO, RATE_LIMITED
+    }
+
+    private final Mode mode;
+    private final double ratio;
+
+    // Token bucket for rate-limited mode: next time a permit is free, with up to one second of burst
+    private final long permitIntervalNanos;
+    private final long burstNanos = TimeUnit.SECONDS.toNanos(1);
+    private final AtomicLong nextPermitNanos = new AtomicLong(System.nanoTime());
+
+    public TraceSamplingPolicy(@Value("${app.tracing.sampler:parent-based}") String sampler,
+                               @Value("${app.tracing.sampler.ratio:1.0}") double ratio,
+                               @Value("${app.tracing.sampler.spans-per-second:100}") double spansPerSecond) {
+        this.mode = switch (sampler.trim().toLowerCase(Locale.ROOT)) {
+            case "parent-based" -> Mode.PARENT_BASED;
+            case "ratio" -> Mode.RATIO;
+            case "rate-limited" -> Mode.RATE_LIMITED;
+            default -> throw new IllegalArgumentException("Invalid app.tracing.sampler: " + sampler
+                + ", expected parent-based, ratio or rate-limited");
+        };
+        if (ratio < 0.0 || ratio > 1.0) {
+            throw new IllegalArgumentException("app.tracing.sampler.ratio must be between 0 and 1: " + ratio);
+        }
+        if (mode == Mode.RATE_LIMITED && spansPerSecond <= 0) {
+            throw new IllegalArgumentException("app.tracing.sampler.spans-per-second must be positive: " + spansPerSecond);
+        }
+        this.ratio = ratio;
+        this.permitIntervalNanos = (spansPerSecond > 0) ? (long) (TimeUnit.SECONDS.toNanos(1) / spansPerSecond) : 0L;
+        logger.info("Trace sampling: mode={}, ratio={}, spansPerSecond={}", mode, ratio, spansPerSecond);
+    }
+
+    /**
+     * @param parent upstream span context, possibly invalid when the message carried none
+     */
+    public boolean shouldTrace(SpanContext parent) {
+        return switch (mode) {
+            case PARENT_BASED -> parent.isValid() ? parent.isSampled() : sampleRatio();
+            case RATIO -> sampleRatio();
+            case RATE_LIMITED -> tryAcquirePermit();
+        };
+    }
+
+    private boolean sampleRatio() {
+        return ratio >= 1.0 || (ratio > 0.0 && ThreadLocalRandom.current().nextDouble() < ratio);
+    }
+
+    private boolean tryAcquirePermit() {
+        while (true) {
+            long now = System.nanoTime();
+            long next = nextPermitNanos.get();
+            // Unused permits accumulate for at most one second
+            long base = Math.max(next, now - burstNanos);
+            if (base > now) {
+                return false;
+            }
+            if (nextPermitNanos.compareAndSet(next, base + permitIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+}
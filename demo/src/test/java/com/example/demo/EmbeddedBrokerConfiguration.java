@@ -0,0 +1,41 @@
+package com.example.demo;
+
+import jakarta.jms.ConnectionFactory;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces the Solace connection factory with an in-process Artemis broker (in-VM transport,
+ * no persistence, no security) so the listener can be load-tested without a network or broker.
+ */
+@TestConfiguration
+@Profile("loadtest")
+public class EmbeddedBrokerConfiguration {
+
+    private static final String IN_VM_URL = "vm://0";
+
+    @Bean(destroyMethod = "stop")
+    public EmbeddedActiveMQ embeddedBroker() throws Exception {
+        Configuration configuration = new ConfigurationImpl()
+            .setPersistenceEnabled(false)
+            .setSecurityEnabled(false);
+        configuration.addAcceptorConfiguration("in-vm", IN_VM_URL);
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+        return broker;
+    }
+
+    @Bean
+    @Primary
+    public ConnectionFactory embeddedConnectionFactory(EmbeddedActiveMQ embeddedBroker) {
+        return new ActiveMQConnectionFactory(IN_VM_URL);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.demo;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageNotWriteableException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * In-memory received {@link BytesMessage} for benchmarks and unit tests. The body is
+ * read-only, as on a consumed message; {@link #reset()} rewinds it. A message created with
+ * {@link #FakeBytesMessage(String)}, as a session creates one to send, only accepts
+ * {@code writeBytes}.
+ */
+class FakeBytesMessage extends FakeMessage implements BytesMessage {
+
+    private ByteBuffer body;
+    private final boolean writable;
+
+    FakeBytesMessage(String queueName, byte[] body) {
+        super(queueName);
+        this.body = ByteBuffer.wrap(body);
+        this.writable = false;
+    }
+
+    FakeBytesMessage(String queueName) {
+        super(queueName);
+        this.body = ByteBuffer.allocate(0);
+        this.writable = true;
+    }
+
+    @Override
+    public long getBodyLength() {
+        return body.limit();
+    }
+
+    @Override
+    public boolean readBoolean() {
+        return body.get() != 0;
+    }
+
+    @Override
+    public byte readByte() {
+        return body.get();
+    }
+
+    @Override
+    public int readUnsignedByte() {
+        return Byte.toUnsignedInt(body.get());
+    }
+
+    @Override
+    public short readShort() {
+        return body.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() {
+        return Short.toUnsignedInt(body.getShort());
+    }
+
+    @Override
+    public char readChar() {
+        return body.getChar();
+    }
+
+    @Override
+    public int readInt() {
+        return body.getInt();
+    }
+
+    @Override
+    public long readLong() {
+        return body.getLong();
+    }
+
+    @Override
+    public float readFloat() {
+        return body.getFloat();
+    }
+
+    @Override
+    public double readDouble() {
+        return body.getDouble();
+    }
+
+    @Override
+    public String readUTF() throws JMSException {
+        throw new MessageFormatException("readUTF is not supported by " + getClass().getSimpleName());
+    }
+
+    @Override
+    public int readBytes(byte[] value) {
+        return readBytes(value, value.length);
+    }
+
+    @Override
+    public int readBytes(byte[] value, int length) {
+        if (!body.hasRemaining()) {
+            return -1;
+        }
+        int read = Math.min(length, body.remaining());
+        body.get(value, 0, read);
+        return read;
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeByte(byte value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeShort(short value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeChar(char value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeInt(int value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeLong(long value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeFloat(float value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeDouble(double value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeUTF(String value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeBytes(byte[] value) throws JMSException {
+        writeBytes(value, 0, value.length);
+    }
+
+    @Override
+    public void writeBytes(byte[] value, int offset, int length) throws JMSException {
+        if (!writable) {
+            throw readOnly();
+        }
+        ByteBuffer grown = ByteBuffer.allocate(body.limit() + length);
+        grown.put(body.duplicate().rewind()).put(value, offset, length).flip();
+        body = grown;
+    }
+
+    @Override
+    public void writeObject(Object value) throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public void reset() {
+        body.rewind();
+    }
+
+    @Override
+    public void clearBody() throws JMSException {
+        throw readOnly();
+    }
+
+    @Override
+    public <T> T getBody(Class<T> c) throws JMSException {
+        if (!isBodyAssignableTo(c)) {
+            throw new MessageFormatException("Body is not assignable to " + c);
+        }
+        byte[] copy = new byte[body.limit()];
+        body.duplicate().rewind().get(copy);
+        return c.cast(copy);
+    }
+
+    @Override
+    public boolean isBodyAssignableTo(Class c) {
+        return c.isAssignableFrom(byte[].class);
+    }
+
+    private static MessageNotWriteableException readOnly() {
+        return new MessageNotWriteableException("Received message body is read-only");
+    }
+}
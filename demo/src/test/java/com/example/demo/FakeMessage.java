@@ -0,0 +1,282 @@
+package com.example.demo;
+
+import jakarta.jms.Destination;
+import jakarta.jms.Message;
+import jakarta.jms.Queue;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link Message} headers and properties for benchmarks and unit tests. Properties
+ * are kept in insertion order and returned as stored, without the type conversions a real
+ * provider performs.
+ */
+abstract class FakeMessage implements Message {
+
+    private final Map<String, Object> properties = new LinkedHashMap<>();
+    private String messageId;
+    private long timestamp;
+    private long expiration;
+    private int priority = 4;
+    private boolean redelivered;
+    private Destination destination;
+    private String correlationId;
+    private String type;
+    private int deliveryMode = jakarta.jms.DeliveryMode.PERSISTENT;
+    private int acknowledgements;
+
+    FakeMessage(String queueName) {
+        this.messageId = "ID:fake-" + System.nanoTime();
+        this.timestamp = System.currentTimeMillis();
+        this.destination = new FakeQueue(queueName);
+    }
+
+    @Override
+    public String getJMSMessageID() {
+        return messageId;
+    }
+
+    @Override
+    public void setJMSMessageID(String id) {
+        this.messageId = id;
+    }
+
+    @Override
+    public long getJMSTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void setJMSTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public byte[] getJMSCorrelationIDAsBytes() {
+        return null;
+    }
+
+    @Override
+    public void setJMSCorrelationIDAsBytes(byte[] correlationID) {
+    }
+
+    @Override
+    public void setJMSCorrelationID(String correlationID) {
+        this.correlationId = correlationID;
+    }
+
+    @Override
+    public String getJMSCorrelationID() {
+        return correlationId;
+    }
+
+    @Override
+    public Destination getJMSReplyTo() {
+        return null;
+    }
+
+    @Override
+    public void setJMSReplyTo(Destination replyTo) {
+    }
+
+    @Override
+    public Destination getJMSDestination() {
+        return destination;
+    }
+
+    @Override
+    public void setJMSDestination(Destination destination) {
+        this.destination = destination;
+    }
+
+    @Override
+    public int getJMSDeliveryMode() {
+        return deliveryMode;
+    }
+
+    @Override
+    public void setJMSDeliveryMode(int deliveryMode) {
+        this.deliveryMode = deliveryMode;
+    }
+
+    @Override
+    public boolean getJMSRedelivered() {
+        return redelivered;
+    }
+
+    @Override
+    public void setJMSRedelivered(boolean redelivered) {
+        this.redelivered = redelivered;
+    }
+
+    @Override
+    public String getJMSType() {
+        return type;
+    }
+
+    @Override
+    public void setJMSType(String type) {
+        this.type = type;
+    }
+
+    @Override
+    public long getJMSExpiration() {
+        return expiration;
+    }
+
+    @Override
+    public void setJMSExpiration(long expiration) {
+        this.expiration = expiration;
+    }
+
+    @Override
+    public long getJMSDeliveryTime() {
+        return 0;
+    }
+
+    @Override
+    public void setJMSDeliveryTime(long deliveryTime) {
+    }
+
+    @Override
+    public int getJMSPriority() {
+        return priority;
+    }
+
+    @Override
+    public void setJMSPriority(int priority) {
+        this.priority = priority;
+    }
+
+    @Override
+    public void clearProperties() {
+        properties.clear();
+    }
+
+    @Override
+    public boolean propertyExists(String name) {
+        return properties.containsKey(name);
+    }
+
+    @Override
+    public boolean getBooleanProperty(String name) {
+        return Boolean.parseBoolean(getStringProperty(name));
+    }
+
+    @Override
+    public byte getByteProperty(String name) {
+        return Byte.parseByte(getStringProperty(name));
+    }
+
+    @Override
+    public short getShortProperty(String name) {
+        return Short.parseShort(getStringProperty(name));
+    }
+
+    @Override
+    public int getIntProperty(String name) {
+        return Integer.parseInt(getStringProperty(name));
+    }
+
+    @Override
+    public long getLongProperty(String name) {
+        return Long.parseLong(getStringProperty(name));
+    }
+
+    @Override
+    public float getFloatProperty(String name) {
+        return Float.parseFloat(getStringProperty(name));
+    }
+
+    @Override
+    public double getDoubleProperty(String name) {
+        return Double.parseDouble(getStringProperty(name));
+    }
+
+    @Override
+    public String getStringProperty(String name) {
+        Object value = properties.get(name);
+        return (value != null) ? value.toString() : null;
+    }
+
+    @Override
+    public Object getObjectProperty(String name) {
+        return properties.get(name);
+    }
+
+    @Override
+    public Enumeration<?> getPropertyNames() {
+        return Collections.enumeration(properties.keySet());
+    }
+
+    @Override
+    public void setBooleanProperty(String name, boolean value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setByteProperty(String name, byte value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setShortProperty(String name, short value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setIntProperty(String name, int value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setLongProperty(String name, long value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setFloatProperty(String name, float value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setDoubleProperty(String name, double value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setStringProperty(String name, String value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void setObjectProperty(String name, Object value) {
+        properties.put(name, value);
+    }
+
+    @Override
+    public void acknowledge() {
+        acknowledgements++;
+    }
+
+    /** Number of {@link #acknowledge()} calls on this message. */
+    int acknowledgements() {
+        return acknowledgements;
+    }
+
+    record FakeQueue(String queueName) implements Queue {
+
+        @Override
+        public String getQueueName() {
+            return queueName;
+        }
+
+        @Override
+        public String toString() {
+            return queueName;
+        }
+    }
+}
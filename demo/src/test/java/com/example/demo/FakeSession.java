@@ -0,0 +1,84 @@
+package com.example.demo;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Destination;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory {@link Session} for unit tests. Creates fake text and bytes messages, counts
+ * {@code recover()} calls and records what its producers send; any other session method
+ * throws {@link UnsupportedOperationException}.
+ */
+class FakeSession {
+
+    /** A message sent through one of the session's producers, with the send arguments. */
+    record Sent(Destination destination, Message message, int deliveryMode, int priority, long timeToLive) {
+    }
+
+    private final List<Sent> sent = new ArrayList<>();
+    private int recoveries;
+    private final Session session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+        new Class<?>[] {Session.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "createTextMessage" -> new FakeTextMessage(null, (args != null) ? (String) args[0] : null);
+            case "createBytesMessage" -> new FakeBytesMessage(null);
+            case "createProducer" -> producer((Destination) args[0]);
+            case "createQueue" -> new FakeMessage.FakeQueue((String) args[0]);
+            case "recover" -> {
+                recoveries++;
+                yield null;
+            }
+            case "getTransacted" -> false;
+            case "getAcknowledgeMode" -> Session.CLIENT_ACKNOWLEDGE;
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+
+    Session session() {
+        return session;
+    }
+
+    /** Connection factory whose connections all hand out this session, e.g. for a {@code JmsTemplate}. */
+    ConnectionFactory connectionFactory() {
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "createSession" -> session;
+                case "close" -> null;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        return (ConnectionFactory) Proxy.newProxyInstance(ConnectionFactory.class.getClassLoader(),
+            new Class<?>[] {ConnectionFactory.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "createConnection" -> connection;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    int recoveries() {
+        return recoveries;
+    }
+
+    List<Sent> sent() {
+        return sent;
+    }
+
+    private MessageProducer producer(Destination destination) {
+        return (MessageProducer) Proxy.newProxyInstance(MessageProducer.class.getClassLoader(),
+            new Class<?>[] {MessageProducer.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "send" -> {
+                    if (args.length != 4) {
+                        throw new UnsupportedOperationException("send without explicit QoS");
+                    }
+                    sent.add(new Sent(destination, (Message) args[0], (int) args[1], (int) args[2], (long) args[3]));
+                    yield null;
+                }
+                case "close" -> null;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.TextMessage;
+
+/**
+ * In-memory {@link TextMessage} for benchmarks and unit tests.
+ */
+class FakeTextMessage extends FakeMessage implements TextMessage {
+
+    private String text;
+
+    FakeTextMessage(String queueName, String text) {
+        super(queueName);
+        this.text = text;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public void clearBody() {
+        text = null;
+    }
+
+    @Override
+    public <T> T getBody(Class<T> c) throws JMSException {
+        if (!isBodyAssignableTo(c)) {
+            throw new MessageFormatException("Body is not assignable to " + c);
+        }
+        return c.cast(text);
+    }
+
+    @Override
+    public boolean isBodyAssignableTo(Class c) {
+        return c.isAssignableFrom(String.class);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IdempotencyCacheTest {
+
+    private static final long NOW = 1_000_000L;
+
+    // Smallest table: 64 segments of 8 slots
+    private static final int SEGMENT_SLOTS = 8;
+
+    /** Key in segment 0 whose probe window starts at the given slot of that segment. */
+    private static long keyAt(int slot, int discriminator) {
+        return ((long) discriminator << 32) | slot;
+    }
+
+    @Test
+    void insertedKeyIsFoundUntilItExpires() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1024, null);
+        long key = Hashing.hash64("message-1");
+
+        assertFalse(cache.contains(key, NOW));
+        cache.put(key, NOW + 100, NOW);
+        assertTrue(cache.contains(key, NOW));
+        assertTrue(cache.contains(key, NOW + 99));
+        assertFalse(cache.contains(key, NOW + 100));
+        assertFalse(cache.contains(Hashing.hash64("message-2"), NOW));
+    }
+
+    @Test
+    void putRefreshesExistingKey() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1, null);
+        long key = keyAt(3, 1);
+
+        cache.put(key, NOW + 10, NOW);
+        cache.put(key, NOW + 500, NOW);
+        assertTrue(cache.contains(key, NOW + 200));
+    }
+
+    @Test
+    void probeWindowWrapsAroundSegmentEnd() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1, null);
+        assertEquals(64 * SEGMENT_SLOTS, cache.slots());
+
+        // All start at the last slot of segment 0 and wrap to its first slots
+        for (int i = 1; i <= SEGMENT_SLOTS; i++) {
+            cache.put(keyAt(SEGMENT_SLOTS - 1, i), NOW + 1000, NOW);
+        }
+        for (int i = 1; i <= SEGMENT_SLOTS; i++) {
+            assertTrue(cache.contains(keyAt(SEGMENT_SLOTS - 1, i), NOW), "key " + i);
+        }
+        // Segment 0 only: a key of segment 1 is not affected
+        assertFalse(cache.contains(keyAt(SEGMENT_SLOTS - 1, 1) | (1L << 58), NOW));
+    }
+
+    @Test
+    void fullWindowEvictsEntryClosestToExpiry() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1, null);
+        for (int i = 1; i <= SEGMENT_SLOTS; i++) {
+            cache.put(keyAt(0, i), NOW + 1000 + i, NOW);
+        }
+
+        cache.put(keyAt(0, 100), NOW + 5000, NOW);
+
+        assertTrue(cache.contains(keyAt(0, 100), NOW));
+        assertFalse(cache.contains(keyAt(0, 1), NOW));
+        for (int i = 2; i <= SEGMENT_SLOTS; i++) {
+            assertTrue(cache.contains(keyAt(0, i), NOW), "key " + i);
+        }
+    }
+
+    @Test
+    void expiredSlotIsReusedBeforeEvicting() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1, null);
+        for (int i = 1; i <= SEGMENT_SLOTS; i++) {
+            // Key 5 has already expired
+            cache.put(keyAt(0, i), (i == 5) ? NOW - 1 : NOW + 1000 + i, NOW);
+        }
+
+        cache.put(keyAt(0, 100), NOW + 5000, NOW);
+
+        assertTrue(cache.contains(keyAt(0, 100), NOW));
+        for (int i = 1; i <= SEGMENT_SLOTS; i++) {
+            if (i != 5) {
+                assertTrue(cache.contains(keyAt(0, i), NOW), "key " + i);
+            }
+        }
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() throws Exception {
+        assertEquals(4096, new IdempotencyCache(4096, null).slots());
+        assertEquals(8192, new IdempotencyCache(4097, null).slots());
+    }
+
+    @Test
+    void capacityOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(0, null));
+        assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(IdempotencyCache.MAX_CAPACITY + 1, null));
+        assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(Integer.MAX_VALUE, null));
+    }
+
+    @Test
+    void storeFileKeepsEntriesAcrossInstances(@TempDir Path dir) throws Exception {
+        Path storeFile = dir.resolve("dedup.store");
+        long key = Hashing.hash64("message-1");
+        IdempotencyCache first = new IdempotencyCache(1024, storeFile);
+        first.put(key, NOW + 100, NOW);
+        first.close();
+
+        assertTrue(new IdempotencyCache(1024, storeFile).contains(key, NOW));
+        // Another capacity has another layout and starts empty
+        assertFalse(new IdempotencyCache(2048, storeFile).contains(key, NOW));
+    }
+}
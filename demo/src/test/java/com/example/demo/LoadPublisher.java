@@ -0,0 +1,59 @@
+package com.example.demo;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes fixed-size text messages to a queue at a target rate. Sends are scheduled against
+ * an absolute timeline, so a slow send is caught up on instead of lowering the offered rate.
+ */
+class LoadPublisher {
+
+    private final ConnectionFactory connectionFactory;
+    private final String queueName;
+
+    LoadPublisher(ConnectionFactory connectionFactory, String queueName) {
+        this.connectionFactory = connectionFactory;
+        this.queueName = queueName;
+    }
+
+    /**
+     * @param urgentPercent share of messages (0-100) sent with JMSPriority 9 instead of the default 4
+     * @return number of messages sent
+     */
+    long publish(int ratePerSecond, int payloadBytes, int durationSeconds, int urgentPercent) throws JMSException {
+        String payload = "x".repeat(payloadBytes);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = (long) ratePerSecond * durationSeconds;
+
+        try (Connection connection = connectionFactory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(session.createQueue(queueName));
+            producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+
+            long start = System.nanoTime();
+            for (long i = 0; i < total; i++) {
+                long wait = start + i * intervalNanos - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                TextMessage message = session.createTextMessage(payload);
+                boolean urgent = i % 100 < urgentPercent;
+                // A group is pinned to one consumer, so it must not span priority lanes' selectors
+                message.setStringProperty("JMSXGroupID", "key-" + (i % 64) + (urgent ? "-urgent" : ""));
+                int priority = urgent ? 9 : Message.DEFAULT_PRIORITY;
+                producer.send(message, DeliveryMode.NON_PERSISTENT, priority, Message.DEFAULT_TIME_TO_LIVE);
+            }
+        }
+        return total;
+    }
+}
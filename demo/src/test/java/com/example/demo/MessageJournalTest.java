@@ -0,0 +1,178 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.ContextPropagators;
+
+class MessageJournalTest {
+
+    private static final OpenTelemetry W3C =
+        OpenTelemetry.propagating(ContextPropagators.create(W3CTraceContextPropagator.getInstance()));
+
+    @TempDir
+    Path dir;
+
+    private MessageJournal journal(Path file, int maxSizeMb, SimpleMeterRegistry registry) throws IOException {
+        return new MessageJournal(true, file.toString(), maxSizeMb, "", W3C, registry);
+    }
+
+    private static List<MessageJournal.Record> readAll(Path file) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        assertEquals(MessageJournal.MAGIC, in.getInt(0));
+        assertEquals(MessageJournal.VERSION, in.getInt(4));
+        in.position(MessageJournal.HEADER_BYTES);
+        List<MessageJournal.Record> records = new ArrayList<>();
+        MessageJournal.Record record;
+        while ((record = MessageJournal.read(in)) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    void recordsRoundTrip() throws Exception {
+        Path file = dir.resolve("round-trip.journal");
+        MessageJournal journal = journal(file, 1, new SimpleMeterRegistry());
+
+        FakeTextMessage text = new FakeTextMessage("orders", "{\"itemId\":\"item-42\"} é");
+        text.setJMSMessageID("ID:text-1");
+        text.setJMSTimestamp(1_700_000_000_000L);
+        text.setJMSExpiration(1_700_000_060_000L);
+        text.setJMSPriority(7);
+        text.setStringProperty("JMSXGroupID", "item-42");
+        text.setBooleanProperty("flag", true);
+        text.setByteProperty("b", (byte) 3);
+        text.setShortProperty("s", (short) 300);
+        text.setIntProperty("i", 70_000);
+        text.setLongProperty("l", 5_000_000_000L);
+        text.setFloatProperty("f", 1.5f);
+        text.setDoubleProperty("d", 2.25);
+        text.setObjectProperty("nothing", null);
+        SpanContext upstream = SpanContext.createFromRemoteParent("0af7651916cd43dd8448eb211c80319c",
+            "b7ad6b7169203331", TraceFlags.getSampled(), TraceState.getDefault());
+        journal.record(MessageEnvelope.of(text, Context.root().with(Span.wrap(upstream))));
+
+        byte[] body = {0, 1, 2, (byte) 0xff};
+        FakeBytesMessage bytes = new FakeBytesMessage("orders", body);
+        bytes.setJMSMessageID("ID:bytes-1");
+        journal.record(MessageEnvelope.of(bytes, Context.root()));
+        journal.close();
+
+        List<MessageJournal.Record> records = readAll(file);
+        assertEquals(2, records.size());
+
+        MessageJournal.Record first = records.get(0);
+        assertEquals("ID:text-1", first.messageId);
+        assertEquals(1_700_000_000_000L, first.timestamp);
+        assertEquals(1_700_000_060_000L, first.expiration);
+        assertEquals(7, first.priority);
+        assertFalse(first.redelivered);
+        assertEquals("orders", first.destination);
+        assertNull(first.correlationId);
+        assertEquals("FakeTextMessage", first.messageType);
+        assertEquals("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01", first.traceFields.get("traceparent"));
+        assertEquals(List.of("JMSXGroupID", "flag", "b", "s", "i", "l", "f", "d", "nothing"),
+            new ArrayList<>(first.properties.keySet()));
+        assertEquals("item-42", first.properties.get("JMSXGroupID"));
+        assertEquals(true, first.properties.get("flag"));
+        assertEquals((byte) 3, first.properties.get("b"));
+        assertEquals((short) 300, first.properties.get("s"));
+        assertEquals(70_000, first.properties.get("i"));
+        assertEquals(5_000_000_000L, first.properties.get("l"));
+        assertEquals(1.5f, first.properties.get("f"));
+        assertEquals(2.25, first.properties.get("d"));
+        assertNull(first.properties.get("nothing"));
+        assertEquals("{\"itemId\":\"item-42\"} é", first.text);
+        assertNull(first.bytes);
+
+        MessageJournal.Record second = records.get(1);
+        assertEquals("ID:bytes-1", second.messageId);
+        assertTrue(second.traceFields.isEmpty());
+        assertNull(second.text);
+        byte[] read = new byte[second.bytes.remaining()];
+        second.bytes.get(read);
+        assertArrayEquals(body, read);
+        assertTrue(second.receivedNanos >= first.receivedNanos);
+    }
+
+    @Test
+    void zeroLengthEndsJournal() throws Exception {
+        Path file = dir.resolve("empty.journal");
+        journal(file, 1, new SimpleMeterRegistry()).close();
+
+        // Mapped at full size: everything after the header is zero
+        assertEquals(1L << 20, Files.size(file));
+        assertTrue(readAll(file).isEmpty());
+        assertNull(MessageJournal.read(ByteBuffer.allocate(2)));
+    }
+
+    @Test
+    void fullJournalDropsLaterRecords() throws Exception {
+        Path file = dir.resolve("full.journal");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MessageJournal journal = journal(file, 1, registry);
+
+        // 100 KB bodies: ten fit in 1 MB
+        byte[] body = new byte[100 * 1024];
+        for (int i = 0; i < 12; i++) {
+            FakeBytesMessage message = new FakeBytesMessage("orders", body);
+            message.setJMSMessageID("ID:" + i);
+            journal.record(MessageEnvelope.of(message, Context.root()));
+        }
+        journal.close();
+
+        List<MessageJournal.Record> records = readAll(file);
+        assertEquals(10, records.size());
+        assertEquals("ID:9", records.get(9).messageId);
+        assertEquals(10, registry.get("listener.journal").tag("result", "recorded").counter().count());
+        assertEquals(2, registry.get("listener.journal").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    void captureIsRejectedInReplayMode() throws Exception {
+        Path file = dir.resolve("messages.journal");
+        Files.write(file, "captured".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalStateException.class,
+            () -> new MessageJournal(true, file.toString(), 1, file.toString(), W3C, new SimpleMeterRegistry()));
+        // Not truncated
+        assertEquals("captured", Files.readString(file));
+    }
+
+    @Test
+    void corruptRecordIsReported() {
+        ByteBuffer in = ByteBuffer.allocate(64);
+        in.putInt(0, 8);
+        assertNotNull(assertThrows(IllegalStateException.class, () -> MessageJournal.read(in)).getCause());
+    }
+}
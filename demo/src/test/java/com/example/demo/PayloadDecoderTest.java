@@ -0,0 +1,138 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import io.opentelemetry.context.Context;
+
+class PayloadDecoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Streaming (ItemPayload reads the parser) and data binding (new instance per message)
+    private final PayloadDecoder streaming = new PayloadDecoder(ItemPayload.class.getName(), true, MAPPER);
+    private final PayloadDecoder binding = new PayloadDecoder(ItemPayload.class.getName(), false, MAPPER);
+
+    private static MessageEnvelope text(String json) throws Exception {
+        return MessageEnvelope.of(new FakeTextMessage("orders", json), Context.root());
+    }
+
+    private static MessageEnvelope bytes(String json) throws Exception {
+        return MessageEnvelope.of(new FakeBytesMessage("orders", json.getBytes(StandardCharsets.UTF_8)), Context.root());
+    }
+
+    /** Decodes with both decoders and checks they agree on the value or the exception type. */
+    private ItemPayload decodeBoth(String json) throws Exception {
+        Object bound;
+        try {
+            bound = binding.decode(text(json));
+        } catch (MismatchedInputException expected) {
+            MismatchedInputException actual = assertThrows(MismatchedInputException.class,
+                () -> streaming.decode(text(json)), json);
+            assertEquals(expected.getClass(), actual.getClass(), json + ": " + actual.getMessage());
+            return null;
+        }
+        ItemPayload streamed = (ItemPayload) streaming.decode(text(json));
+        assertEquals(String.valueOf(bound), String.valueOf(streamed), json);
+        return streamed;
+    }
+
+    @Test
+    void undeclaredFieldsAreSkipped() throws Exception {
+        ItemPayload payload = decodeBoth("{\"meta\":{\"tags\":[\"a\",{\"b\":[1,2]}],\"n\":null},\"itemId\":\"item-42\","
+            + "\"list\":[[1],[2,[3]]],\"name\":\"Widget\",\"flag\":true,\"quantity\":3,\"price\":9.99,\"tail\":\"x\"}");
+
+        assertEquals("item-42", payload.getItemId());
+        assertEquals("Widget", payload.getName());
+        assertEquals(3, payload.getQuantity());
+        assertEquals(new BigDecimal("9.99"), payload.getPrice());
+    }
+
+    @Test
+    void bytesAndTextDecodeAlike() throws Exception {
+        String json = "{\"itemId\":\"item-é\",\"quantity\":2,\"price\":\"1.50\"}";
+        String fromText = String.valueOf(binding.decode(text(json)));
+
+        assertEquals(fromText, String.valueOf(binding.decode(bytes(json))));
+        assertEquals(fromText, String.valueOf(streaming.decode(bytes(json))));
+        assertEquals(fromText, String.valueOf(streaming.decode(text(json))));
+    }
+
+    @Test
+    void reusedInstanceIsResetBetweenMessages() throws Exception {
+        ItemPayload first = (ItemPayload) streaming.decode(text("{\"itemId\":\"a\",\"name\":\"n\",\"quantity\":5,\"price\":1}"));
+        ItemPayload second = (ItemPayload) streaming.decode(text("{\"itemId\":\"b\"}"));
+
+        // One instance per thread, with no field carried over from the previous message
+        assertSame(first, second);
+        assertEquals("b", second.getItemId());
+        assertNull(second.getName());
+        assertEquals(0, second.getQuantity());
+        assertNull(second.getPrice());
+    }
+
+    @Test
+    void emptyAndNullBodies() throws Exception {
+        assertNull(streaming.decode(text("")));
+        assertNull(streaming.decode(bytes("")));
+        assertNull(streaming.decode(text("null")));
+        assertInstanceOf(MismatchedInputException.class,
+            assertThrows(MismatchedInputException.class, () -> streaming.decode(text("[1,2]"))));
+    }
+
+    @Test
+    void wellFormedScalarsAreCoercedAsDataBindingDoes() throws Exception {
+        for (String json : List.of(
+                "{\"quantity\":\"12\",\"price\":\"3.5\"}",
+                "{\"quantity\":\" 12 \",\"price\":\" 3.5 \"}",
+                "{\"quantity\":12.7,\"price\":4}",
+                "{\"quantity\":null,\"price\":null}",
+                "{\"quantity\":\"\",\"price\":\"\"}",
+                "{\"itemId\":42,\"name\":true}",
+                "{\"itemId\":null,\"name\":12.5}")) {
+            decodeBoth(json);
+        }
+        assertNull(decodeBoth("{\"price\":\"\"}").getPrice());
+        assertEquals(12, decodeBoth("{\"quantity\":\"12\"}").getQuantity());
+    }
+
+    @Test
+    void malformedScalarsFailAsDataBindingDoes() throws Exception {
+        for (String json : List.of(
+                "{\"quantity\":\"abc\"}",
+                "{\"quantity\":\"1.5\"}",
+                "{\"quantity\":\"99999999999\"}",
+                "{\"quantity\":true}",
+                "{\"quantity\":[1]}",
+                "{\"price\":\"abc\"}",
+                "{\"price\":false}",
+                "{\"price\":{\"amount\":1}}",
+                "{\"itemId\":{\"id\":1}}")) {
+            assertNull(decodeBoth(json), json);
+        }
+        assertThrows(InvalidFormatException.class, () -> streaming.decode(text("{\"quantity\":\"abc\"}")));
+        assertThrows(InvalidFormatException.class, () -> streaming.decode(text("{\"price\":\"€1\"}")));
+    }
+
+    @Test
+    void outOfRangeNumbersFailAsDataBindingDoes() {
+        for (String json : List.of("{\"quantity\":99999999999}", "{\"quantity\":-99999999999}", "{\"quantity\":1e10}")) {
+            assertThrows(JsonMappingException.class, () -> binding.decode(text(json)), json);
+            assertThrows(JsonMappingException.class, () -> streaming.decode(text(json)), json);
+        }
+    }
+}
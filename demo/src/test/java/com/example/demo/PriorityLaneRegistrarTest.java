@@ -0,0 +1,141 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.junit.jupiter.api.Test;
+
+class PriorityLaneRegistrarTest {
+
+    private static PriorityLaneRegistrar registrar(String priorityProperty) {
+        return new PriorityLaneRegistrar("", priorityProperty, "orders", 0, false, false, 0, "", null, null, null, null);
+    }
+
+    private static List<String> selectors(String priorityProperty, String spec) {
+        PriorityLaneRegistrar registrar = registrar(priorityProperty);
+        List<PriorityLaneRegistrar.Lane> lanes = PriorityLaneRegistrar.parse(spec);
+        List<String> selectors = new ArrayList<>();
+        for (int i = 0; i < lanes.size(); i++) {
+            selectors.add(registrar.selector(lanes, i));
+        }
+        return selectors;
+    }
+
+    @Test
+    void parseSortsLanesByMinPriorityDescending() {
+        assertEquals(List.of(new PriorityLaneRegistrar.Lane("urgent", 7, 2), new PriorityLaneRegistrar.Lane("normal", 4, 3),
+                new PriorityLaneRegistrar.Lane("bulk", 0, 6)),
+            PriorityLaneRegistrar.parse(" bulk:0:6, urgent : 7 : 2 ,normal:4:3"));
+    }
+
+    @Test
+    void parseRejectsMalformedEntries() {
+        for (String spec : List.of("urgent:7", "urgent:high:2", "urgent:7:0", ":7:2", "a:7:1,a:4:1", "a:7:1,b:7:1")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PriorityLaneRegistrar.parse(spec));
+            assertTrue(e.getMessage().startsWith("Invalid app.priority.lanes entry"), e.getMessage());
+        }
+    }
+
+    @Test
+    void priorityPropertyMustBeAPropertyName() {
+        assertThrows(IllegalArgumentException.class, () -> registrar("prio OR TRUE"));
+        assertThrows(IllegalArgumentException.class, () -> registrar("1prio"));
+    }
+
+    @Test
+    void singleLaneTakesEverything() {
+        assertEquals(1, selectors("", "all:0:8").size());
+        assertNull(selectors("", "all:0:8").get(0));
+        assertNull(selectors("prio", "all:5:8").get(0));
+    }
+
+    @Test
+    void jmsPrioritySelectorsCoverEachRange() {
+        assertEquals(List.of("JMSPriority >= 7", "JMSPriority >= 4 AND JMSPriority < 7", "JMSPriority < 4"),
+            selectors("", "bulk:0:6,urgent:7:2,normal:4:3"));
+    }
+
+    @Test
+    void propertySelectorsLeaveNoMessageUnmatched() throws Exception {
+        List<String> selectors = selectors("prio", "bulk:0:6,urgent:7:2,normal:4:3");
+        assertEquals("prio >= 7", selectors.get(0));
+        assertEquals("prio >= 4 AND prio < 7", selectors.get(1));
+
+        // Every message is consumed by exactly one lane, whatever the type of its property
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("int-9", 0);
+        expected.put("long-7", 0);
+        expected.put("double-6.5", 1);
+        expected.put("int-4", 1);
+        expected.put("int-1", 2);
+        expected.put("int-negative", 2);
+        expected.put("string-7", 2);
+        expected.put("boolean", 2);
+        expected.put("missing", 2);
+
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setPersistenceEnabled(false).setSecurityEnabled(false).addAcceptorConfiguration("in-vm", "vm://7");
+        broker.setConfiguration(configuration);
+        broker.start();
+        try (ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory("vm://7");
+             Connection connection = factory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("orders");
+            List<MessageConsumer> lanes = new ArrayList<>();
+            for (String selector : selectors) {
+                lanes.add(session.createConsumer(queue, selector));
+            }
+            connection.start();
+
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(message(session, "int-9", 9));
+            producer.send(message(session, "long-7", 7L));
+            producer.send(message(session, "double-6.5", 6.5));
+            producer.send(message(session, "int-4", 4));
+            producer.send(message(session, "int-1", 1));
+            producer.send(message(session, "int-negative", -3));
+            producer.send(message(session, "string-7", "7"));
+            producer.send(message(session, "boolean", true));
+            producer.send(message(session, "missing", null));
+
+            Map<String, Integer> received = new LinkedHashMap<>();
+            for (int lane = 0; lane < lanes.size(); lane++) {
+                Message message;
+                while ((message = lanes.get(lane).receive(200)) != null) {
+                    assertNull(received.put(message.getStringProperty("name"), lane));
+                }
+            }
+            assertEquals(expected, received);
+        } finally {
+            broker.stop();
+        }
+    }
+
+    private static Message message(Session session, String name, Object priority) throws JMSException {
+        Message message = session.createMessage();
+        message.setStringProperty("name", name);
+        if (priority != null) {
+            message.setObjectProperty("prio", priority);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Session;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The result cache is shared by every container, so a payload cached for one destination must
+ * not skip processing of the same payload on another destination.
+ */
+@SpringBootTest(properties = {
+    "app.queue.name=result-cache-main",
+    "app.result-cache.enabled=true",
+    "app.subscriptions[0].id=other",
+    "app.subscriptions[0].destination=result-cache-other"
+})
+@ActiveProfiles("loadtest")
+@Import(EmbeddedBrokerConfiguration.class)
+class ProcessingResultCacheTest {
+
+    private static final String BODY = "{\"itemId\":\"item-42\",\"quantity\":1}";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void samePayloadOnTwoDestinationsIsProcessedTwice() throws Exception {
+        send("result-cache-main");
+        send("result-cache-other");
+        awaitAtLeast(this::processed, 2);
+
+        // Same payload on the same destination again: served from the cache
+        send("result-cache-main");
+        awaitAtLeast(this::cacheHits, 1);
+
+        assertEquals(2, processed());
+        assertEquals(1, cacheHits());
+    }
+
+    private void send(String queueName) throws JMSException {
+        try (Connection connection = connectionFactory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createProducer(session.createQueue(queueName)).send(session.createTextMessage(BODY));
+        }
+    }
+
+    private static void awaitAtLeast(DoubleSupplier count, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (count.getAsDouble() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    /** Processing calls on any container. */
+    private double processed() {
+        return meterRegistry.find("listener.stage.duration").tag("stage", "process").timers().stream()
+            .mapToLong(Timer::count)
+            .sum();
+    }
+
+    private double cacheHits() {
+        FunctionCounter hits = meterRegistry.find("cache.gets").tags("cache", "listener.result-cache", "result", "hit")
+            .functionCounter();
+        return (hits != null) ? hits.count() : 0;
+    }
+}
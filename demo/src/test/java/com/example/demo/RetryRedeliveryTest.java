@@ -0,0 +1,66 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A failure the retry scheduler does not take over (max-pending reached) must go back to the
+ * broker: the itemListener container only acknowledges after {@code onMessage} returns.
+ */
+@SpringBootTest(properties = {
+    "app.queue.name=retry-overflow",
+    "app.retry.enabled=true",
+    "app.retry.max-pending=0",
+    "app.payload.type=com.example.demo.ItemPayload"
+})
+@ActiveProfiles("loadtest")
+@Import(EmbeddedBrokerConfiguration.class)
+class RetryRedeliveryTest {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.queue.name}")
+    private String queueName;
+
+    @Test
+    void overflowedFailureIsRedelivered() throws Exception {
+        try (Connection connection = connectionFactory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(session.createQueue(queueName));
+            // Fails to decode on every delivery
+            producer.send(session.createTextMessage("{\"itemId\":\"item-42\",\"quantity\":\"abc\"}"));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (rejected() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(rejected() >= 2, "Rejected failure was not delivered again");
+        assertTrue(meterRegistry.get("listener.message.redelivered").counter().count() >= 1,
+            "Second delivery was not flagged as a redelivery");
+    }
+
+    private double rejected() {
+        return meterRegistry.get("listener.retry").tag("outcome", "rejected").counter().count();
+    }
+}
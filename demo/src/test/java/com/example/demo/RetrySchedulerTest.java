@@ -0,0 +1,152 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.core.JmsTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.context.Context;
+
+class RetrySchedulerTest {
+
+    private static RetryScheduler scheduler(int maxAttempts, FakeSession session) {
+        return new RetryScheduler(true, maxAttempts, 60_000, 2.0, 60_000, 10, 1, "orders.DLQ",
+            new JmsTemplate(session.connectionFactory()), new SimpleMeterRegistry());
+    }
+
+    private static FakeTextMessage urgentOrder() {
+        FakeTextMessage message = new FakeTextMessage("orders", "{\"itemId\":\"item-42\"}");
+        message.setStringProperty("JMSXGroupID", "item-42");
+        message.setStringProperty("JMSXDeliveryCount", "3");
+        message.setStringProperty("JMS_Solace_isXML", "false");
+        message.setStringProperty("region", "eu");
+        message.setIntProperty("quantity", 7);
+        message.setJMSCorrelationID("corr-1");
+        message.setJMSType("order");
+        message.setJMSPriority(9);
+        message.setJMSDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        return message;
+    }
+
+    @Test
+    void copyOfTextKeepsBodyApplicationPropertiesAndGroup() throws Exception {
+        FakeSession session = new FakeSession();
+        MessageEnvelope envelope = MessageEnvelope.of(urgentOrder(), Context.root());
+
+        Message copy = RetryScheduler.copyOf(session.session(), envelope);
+
+        assertEquals("{\"itemId\":\"item-42\"}", assertInstanceOf(TextMessage.class, copy).getText());
+        assertEquals("item-42", copy.getStringProperty("JMSXGroupID"));
+        assertEquals("eu", copy.getStringProperty("region"));
+        assertEquals(7, copy.getObjectProperty("quantity"));
+        // Other JMSX and vendor properties are the provider's to set
+        assertFalse(copy.propertyExists("JMSXDeliveryCount"));
+        assertFalse(copy.propertyExists("JMS_Solace_isXML"));
+        assertEquals("corr-1", copy.getJMSCorrelationID());
+        assertEquals("order", copy.getJMSType());
+    }
+
+    @Test
+    void copyOfBytesCopiesWholeBody() throws Exception {
+        byte[] body = "binary \u0000 payload".getBytes(StandardCharsets.UTF_8);
+        FakeBytesMessage original = new FakeBytesMessage("orders", body);
+        original.setStringProperty("JMSXGroupID", "item-7");
+        FakeSession session = new FakeSession();
+        MessageEnvelope envelope = MessageEnvelope.of(original, Context.root());
+
+        BytesMessage copy = assertInstanceOf(BytesMessage.class, RetryScheduler.copyOf(session.session(), envelope));
+
+        assertArrayEquals(body, copy.getBody(byte[].class));
+        assertEquals("item-7", copy.getStringProperty("JMSXGroupID"));
+    }
+
+    @Test
+    void deadLetterKeepsPriorityAndDeliveryModeButNotExpiration() throws Exception {
+        FakeSession session = new FakeSession();
+        RetryScheduler retryScheduler = scheduler(1, session);
+        FakeTextMessage original = urgentOrder();
+        original.setJMSExpiration(System.currentTimeMillis() + 60_000);
+        MessageEnvelope envelope = MessageEnvelope.of(original, Context.root());
+
+        assertTrue(retryScheduler.handleFailure(envelope, false, new IllegalStateException("boom"), (e, l) -> { }));
+
+        assertEquals(1, session.sent().size());
+        FakeSession.Sent sent = session.sent().get(0);
+        assertEquals("orders.DLQ", ((FakeMessage.FakeQueue) sent.destination()).queueName());
+        assertEquals(9, sent.priority());
+        assertEquals(DeliveryMode.NON_PERSISTENT, sent.deliveryMode());
+        assertEquals(Message.DEFAULT_TIME_TO_LIVE, sent.timeToLive());
+        assertEquals("item-42", sent.message().getStringProperty("JMSXGroupID"));
+        assertEquals(1, sent.message().getIntProperty("dlqAttempts"));
+        assertEquals(original.getJMSMessageID(), sent.message().getStringProperty("dlqOriginalMessageId"));
+    }
+
+    @Test
+    void requeueOnShutdownKeepsPriorityGroupAndRemainingTimeToLive() throws Exception {
+        FakeSession session = new FakeSession();
+        RetryScheduler retryScheduler = scheduler(5, session);
+        FakeTextMessage original = urgentOrder();
+        long expiration = System.currentTimeMillis() + 60_000;
+        original.setJMSExpiration(expiration);
+        MessageEnvelope envelope = MessageEnvelope.of(original, Context.root());
+
+        // Parked for a minute, then sent back to its source queue by the shutdown
+        assertTrue(retryScheduler.handleFailure(envelope, false, new IllegalStateException("boom"), (e, l) -> { }));
+        assertEquals(1, retryScheduler.pendingCount());
+        retryScheduler.stop();
+
+        assertEquals(1, session.sent().size());
+        FakeSession.Sent sent = session.sent().get(0);
+        assertEquals(original.getJMSDestination(), sent.destination());
+        assertEquals(9, sent.priority());
+        assertEquals("item-42", sent.message().getStringProperty("JMSXGroupID"));
+        assertTrue(sent.timeToLive() > 0 && sent.timeToLive() <= 60_000, "time to live " + sent.timeToLive());
+    }
+
+    @Test
+    void requeuedRetryKeepsItsAttemptAndOriginalMessageId() throws Exception {
+        FakeSession session = new FakeSession();
+        RetryScheduler retryScheduler = scheduler(2, session);
+        FakeTextMessage original = urgentOrder();
+
+        assertTrue(retryScheduler.handleFailure(MessageEnvelope.of(original, Context.root()), false,
+            new IllegalStateException("boom"), (e, l) -> { }));
+        retryScheduler.stop();
+
+        // Received again under a new JMSMessageID, as the second attempt of the original
+        Message requeued = session.sent().get(0).message();
+        requeued.setJMSMessageID("ID:requeued");
+        MessageEnvelope envelope = MessageEnvelope.of(requeued, Context.root());
+        assertEquals(2, envelope.attempt());
+        assertEquals(original.getJMSMessageID(), envelope.messageId());
+
+        // Its last attempt: dead-lettered, without the retry state on the copy
+        RetryScheduler restarted = scheduler(2, session);
+        assertTrue(restarted.handleFailure(envelope, false, new IllegalStateException("boom"), (e, l) -> { }));
+        Message deadLettered = session.sent().get(1).message();
+        assertEquals(2, deadLettered.getIntProperty("dlqAttempts"));
+        assertEquals(original.getJMSMessageID(), deadLettered.getStringProperty("dlqOriginalMessageId"));
+        assertFalse(deadLettered.propertyExists(RetryScheduler.ATTEMPT_PROPERTY));
+        assertEquals(0, restarted.pendingCount());
+    }
+
+    @Test
+    void timeToLiveExpiresCopyWithOriginal() {
+        assertEquals(Message.DEFAULT_TIME_TO_LIVE, RetryScheduler.timeToLive(0, 1_000));
+        assertEquals(500, RetryScheduler.timeToLive(1_500, 1_000));
+        // Zero would mean "never expires"
+        assertEquals(1, RetryScheduler.timeToLive(900, 1_000));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.jms.ConnectionFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Broker-free throughput harness: drives app.queue.name on an embedded Artemis broker at a
+ * configurable rate and reports sustained msgs/sec and p50/p99/p99.9 latency.
+ * <pre>
+ * mvn test -Dtest=ThroughputHarnessTest -Dloadtest=true \
+ *     -Dloadtest.rate=5000 -Dloadtest.payload-bytes=1024 -Dloadtest.duration-seconds=30
+ * </pre>
+ * Listener settings (concurrency, lanes, batch, ...) can be passed the same way, e.g.
+ * {@code -Dapp.listener.concurrency.max=8}. {@code -Dloadtest.urgent-percent=10} sends that
+ * share of messages with JMSPriority 9.
+ */
+@SpringBootTest
+@ActiveProfiles("loadtest")
+@Import(EmbeddedBrokerConfiguration.class)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ThroughputHarnessTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThroughputHarnessTest.class);
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.queue.name}")
+    private String queueName;
+
+    @Value("${loadtest.rate:1000}")
+    private int rate;
+
+    @Value("${loadtest.payload-bytes:1024}")
+    private int payloadBytes;
+
+    @Value("${loadtest.duration-seconds:10}")
+    private int durationSeconds;
+
+    @Value("${loadtest.urgent-percent:0}")
+    private int urgentPercent;
+
+    @Value("${loadtest.drain-timeout-seconds:60}")
+    private int drainTimeoutSeconds;
+
+    @Test
+    void sustainedThroughput() throws Exception {
+        Timer processed = meterRegistry.get("listener.stage.duration").tags("stage", "process", "container", "itemListener")
+            .timer();
+        Timer age = meterRegistry.get("listener.message.age").tag("container", "itemListener").timer();
+        long processedBefore = processed.count();
+        long shedBefore = shedCount();
+        long cachedBefore = cachedCount();
+
+        long start = System.nanoTime();
+        long sent = new LoadPublisher(connectionFactory, queueName).publish(rate, payloadBytes, durationSeconds,
+            urgentPercent);
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainTimeoutSeconds);
+        while (processed.count() - processedBefore + shedCount() - shedBefore + cachedCount() - cachedBefore < sent
+                && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long received = processed.count() - processedBefore;
+        long shed = shedCount() - shedBefore;
+        long cached = cachedCount() - cachedBefore;
+
+        logger.info("========== Throughput Harness ==========");
+        logger.info("Offered: {} msgs/sec x {}s, payload {} bytes", rate, durationSeconds, payloadBytes);
+        logger.info("Sent: {}, processed: {}, shed as stale: {}, served from cache: {}, elapsed: {}s", sent, received,
+            shed, cached, String.format("%.2f", elapsedSeconds));
+        logger.info("Sustained throughput: {} msgs/sec",
+            String.format("%.0f", (received + shed + cached) / elapsedSeconds));
+        logPercentiles("End-to-end age (publish -> receive)", age.takeSnapshot());
+        logPercentiles("Processing time", processed.takeSnapshot());
+        for (Timer laneAge : meterRegistry.find("listener.priority.age").timers()) {
+            logPercentiles("Priority lane " + laneAge.getId().getTag("lane") + " message age", laneAge.takeSnapshot());
+        }
+
+        assertTrue(received + shed + cached >= sent, "Not all messages processed within the drain timeout");
+    }
+
+    /** Messages dropped or routed away by the stale message policy; deferred ones are processed later. */
+    private long shedCount() {
+        return (long) (meterRegistry.get("listener.stale").tag("action", "dropped").counter().count()
+            + meterRegistry.get("listener.stale").tag("action", "side-queued").counter().count());
+    }
+
+    /** Messages acknowledged with a cached result instead of being processed. */
+    private long cachedCount() {
+        FunctionCounter hits = meterRegistry.find("cache.gets").tags("cache", "listener.result-cache", "result", "hit")
+            .functionCounter();
+        return (hits != null) ? (long) hits.count() : 0;
+    }
+
+    private static void logPercentiles(String label, HistogramSnapshot snapshot) {
+        StringBuilder line = new StringBuilder(label).append(':');
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            String name = String.valueOf(percentile.percentile() * 100).replaceAll("\\.0$", "");
+            line.append(String.format(" p%s=%.3fms", name, percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        logger.info(line.toString());
+    }
+}